@@ -1,3 +1,34 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 /**
  * Comment
  *  - 주석은 나쁜 코드를 보완하는 수단이 아니라,
@@ -9,12 +40,22 @@ public class Comment {
 
     // 나쁜 주석 예시
     // 변수 i에 1을 더한다. (코드만 봐도 알 수 있는 사실을 반복)
-    private int counter = 0;
+    // (여러 스레드가 동시에 증가시키므로 스트라이프 카운터 사용)
+    private final StripedCounter counter = new StripedCounter();
 
     // 좋은 주석 예시
     // 이 값은 외부 시스템 API의 호출 제한 때문에
     // 1분에 100회 이상 증가하지 않도록 설계되었다.
-    private int apiCallCount = 0;
+    private final StripedCounter apiCallCount = new StripedCounter();
+
+    // 최근 1초/1분 호출 수를 보기 위한 시간 버킷 (100ms × 600 = 1분)
+    private final WindowedCounter recentApiCalls = new WindowedCounter(Duration.ofMillis(100), 600);
+
+    // 초당 10회, 분당 100회 제한을 함께 만족해야 호출할 수 있다.
+    // 두 제한 모두 외부 시스템이 정한 값이므로 임의로 늘리면 안 된다.
+    private final ApiRateLimiter apiRateLimiter = ApiRateLimiter.of(
+            TokenBucket.perInterval(10, Duration.ofSeconds(1)),
+            TokenBucket.perInterval(100, Duration.ofMinutes(1)));
 
     /**
      * 카운터 증가 메서드
@@ -29,13 +70,15 @@ public class Comment {
     public void increaseCounter() {
         // 불필요한 주석
         // counter = counter + 1;
-        counter++;
+        counter.increment();
 
         // "왜 이렇게 동작하는지" 설명하는 주석
         // 외부 API 호출 횟수 제한을 피하기 위해
-        // 초당 최대 10회까지만 증가를 허용한다.
-        if (apiCallCount < 10) {
-            apiCallCount++;
+        // 초당 최대 10회, 분당 최대 100회까지만 증가를 허용한다.
+        // 단순 비교(apiCallCount < 10)는 경쟁 조건에 취약하고 시간이 지나도 다시 채워지지 않는다.
+        if (apiRateLimiter.tryAcquire()) {
+            apiCallCount.increment();
+            recentApiCalls.increment();
         }
     }
 
@@ -61,18 +104,31 @@ public class Comment {
      * 리팩터링 대상임을 명확히 표시하는 주석은 유용하다.
      */
     public void paymentProcess() {
-        // TODO: 결제 로직 구현 필요 (외부 PG사 API 연동 예정)
-        // FIXME: 현재는 mock 데이터만 반환 중
-        System.out.println("결제 처리 중... (mock 데이터)");
+        // TODO: LocalPaymentGateway를 외부 PG사 API 연동 구현으로 교체
+        // FIXME: 현재는 로컬 대역 게이트웨이로만 승인/매입/정산한다
+        try (PaymentPipeline pipeline = PaymentPipeline.start(new LocalPaymentGateway(), 1, 1, 1)) {
+            PaymentResult result = pipeline.submit(new PaymentRequest("demo-order-1", "demo-account", 10_000)).join();
+            System.out.println("결제 처리 결과: " + result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     // Getter 메서드들
     public int getCounter() {
-        return counter;
+        return (int) counter.sum();
     }
 
     public int getApiCallCount() {
-        return apiCallCount;
+        return (int) apiCallCount.sum();
+    }
+
+    public long getApiCallCountInLastSecond() {
+        return recentApiCalls.countWithin(Duration.ofSeconds(1));
+    }
+
+    public long getApiCallCountInLastMinute() {
+        return recentApiCalls.countWithin(Duration.ofMinutes(1));
     }
 
     /**
@@ -124,10 +180,976 @@ public class Comment {
                     i+1, limitTest.getApiCallCount());
         }
 
+        System.out.println();
+
+        // 경합 상황에서의 rate limiter 처리량 측정
+        System.out.println("6. ApiRateLimiter 경합 테스트 (64 스레드, 1초):");
+        measureRateLimiterThroughput(64, Duration.ofSeconds(1));
+        System.out.println();
+
+        // 단일 AtomicInteger는 모든 스레드가 같은 캐시 라인을 두고 경쟁한다
+        System.out.println("7. StripedCounter vs AtomicInteger (64 스레드, 1초):");
+        AtomicInteger atomicCounter = new AtomicInteger();
+        StripedCounter stripedCounter = new StripedCounter();
+        measureIncrementThroughput("AtomicInteger", atomicCounter::incrementAndGet, 64, Duration.ofSeconds(1));
+        measureIncrementThroughput("StripedCounter", stripedCounter::increment, 64, Duration.ofSeconds(1));
+        System.out.printf("   StripedCounter 정확한 합계: %,d / 근사 합계: %,d%n",
+                stripedCounter.sum(), stripedCounter.approximateSum());
+        System.out.println();
+
+        // 결제 파이프라인 부하 테스트 (재시도 요청은 같은 멱등 키로 다시 제출)
+        System.out.println("8. PaymentPipeline 부하 테스트 (20,000건, 10% 재시도):");
+        drivePaymentLoad(20_000, 0.1);
+
         System.out.println("\n=== 실행 완료 ===");
         System.out.println("주석 작성 원칙:");
         System.out.println("• 좋은 주석은 '왜(Why)'를 설명한다");
         System.out.println("• 나쁜 주석은 '무엇(What)'을 반복한다");
         System.out.println("• 코드 자체로 설명 가능하면 주석은 불필요하다");
     }
+
+    private static void measureRateLimiterThroughput(int threadCount, Duration duration) {
+        ApiRateLimiter limiter = ApiRateLimiter.of(
+                TokenBucket.perInterval(10, Duration.ofSeconds(1)),
+                TokenBucket.perInterval(100, Duration.ofMinutes(1)));
+        AtomicLong attempts = new AtomicLong();
+        AtomicLong granted = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        Thread[] workers = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            workers[i] = new Thread(() -> {
+                long localAttempts = 0;
+                long localGranted = 0;
+                while (System.nanoTime() < deadline) {
+                    localAttempts++;
+                    if (limiter.tryAcquire()) localGranted++;
+                }
+                attempts.addAndGet(localAttempts);
+                granted.addAndGet(localGranted);
+            });
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("   tryAcquire 처리량: %,.0f ops/s, 허용된 호출: %d회%n",
+                attempts.get() / seconds, granted.get());
+    }
+
+    private static void drivePaymentLoad(int paymentCount, double retryRatio) {
+        LocalPaymentGateway gateway = new LocalPaymentGateway();
+        List<CompletableFuture<PaymentResult>> results = new ArrayList<>(paymentCount);
+        long startedAt = System.nanoTime();
+
+        try (PaymentPipeline pipeline = PaymentPipeline.start(gateway, 16, 100, 1_024)) {
+            int retryEvery = (int) Math.max(1, Math.round(1 / retryRatio));
+            for (int i = 0; i < paymentCount; i++) {
+                PaymentRequest request = new PaymentRequest("order-" + i, "account-" + (i % 1_000), 1_000 + i % 5_000);
+                results.add(pipeline.submit(request));
+                if (i % retryEvery == 0) {
+                    results.add(pipeline.submit(request));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // 재시도 제출은 처음 제출과 같은 결과 객체를 받으므로 중복을 제거하고 센다
+        long settled = results.stream().distinct()
+                .map(CompletableFuture::join)
+                .filter(result -> result == PaymentResult.SETTLED)
+                .count();
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        System.out.printf("   정산 완료: %,d건 / 게이트웨이 매입: %,d건 (중복 매입 없음: %b)%n",
+                settled, gateway.capturedCount(), gateway.capturedCount() == paymentCount);
+        System.out.printf("   처리량: %,.0f payments/s%n", paymentCount / seconds);
+    }
+
+    private static void measureIncrementThroughput(String label, Runnable increment,
+                                                   int threadCount, Duration duration) {
+        AtomicLong operations = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        Thread[] workers = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            workers[i] = new Thread(() -> {
+                long localOperations = 0;
+                while (System.nanoTime() < deadline) {
+                    increment.run();
+                    localOperations++;
+                }
+                operations.addAndGet(localOperations);
+            });
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        System.out.printf("   %-14s: %,.0f increments/s%n", label, operations.get() / (duration.toNanos() / 1e9));
+    }
+
+    /**
+     * 락 없는(CAS 기반) 토큰 버킷.
+     *
+     * 토큰 수를 직접 세지 않고 "버킷이 가득 차는 이론적 시각(theoretical arrival time)" 하나만
+     * AtomicLong에 저장한다(GCRA). 토큰 보충은 별도 스레드 없이 호출 시점에 단조 시계로 계산되며,
+     * 상태가 값 하나뿐이라 CAS 한 번으로 원자적으로 갱신할 수 있다.
+     */
+    static final class TokenBucket {
+        private final long nanosPerToken;
+        private final long burstNanos;
+        private final AtomicLong theoreticalArrivalNanos;
+
+        private TokenBucket(int capacity, Duration interval) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+            }
+            if (interval.isNegative() || interval.isZero()) {
+                throw new IllegalArgumentException("interval must be positive: " + interval);
+            }
+            this.nanosPerToken = interval.toNanos() / capacity;
+            this.burstNanos = nanosPerToken * capacity;
+            // 생성 직후에는 버킷이 가득 찬 상태
+            this.theoreticalArrivalNanos = new AtomicLong(System.nanoTime() - burstNanos);
+        }
+
+        /** interval 동안 최대 capacity회 허용 (예: 1초에 10회) */
+        static TokenBucket perInterval(int capacity, Duration interval) {
+            return new TokenBucket(capacity, interval);
+        }
+
+        boolean tryAcquire(long nowNanos) {
+            while (true) {
+                long current = theoreticalArrivalNanos.get();
+                long next = Math.max(current, nowNanos - burstNanos) + nanosPerToken;
+                if (next > nowNanos) {
+                    return false;
+                }
+                if (theoreticalArrivalNanos.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        /** 여러 제한을 함께 적용할 때, 뒤쪽 제한에서 거절되면 앞에서 가져간 토큰을 돌려준다. */
+        void refund() {
+            theoreticalArrivalNanos.addAndGet(-nanosPerToken);
+        }
+
+        long nanosUntilAvailable(long nowNanos) {
+            long next = Math.max(theoreticalArrivalNanos.get(), nowNanos - burstNanos) + nanosPerToken;
+            return Math.max(0, next - nowNanos);
+        }
+    }
+
+    /**
+     * 여러 토큰 버킷을 겹쳐 적용하는 rate limiter (예: 초당 10회 + 분당 100회).
+     * 모든 버킷에서 토큰을 얻어야만 허용하며, 하나라도 거절하면 이미 얻은 토큰은 반납한다.
+     */
+    static final class ApiRateLimiter {
+        private final TokenBucket[] buckets;
+
+        private ApiRateLimiter(TokenBucket[] buckets) {
+            if (buckets.length == 0) {
+                throw new IllegalArgumentException("at least one bucket is required");
+            }
+            this.buckets = buckets.clone();
+        }
+
+        static ApiRateLimiter of(TokenBucket... buckets) {
+            return new ApiRateLimiter(buckets);
+        }
+
+        /** 대기하지 않고 즉시 허용 여부를 반환한다. */
+        boolean tryAcquire() {
+            long now = System.nanoTime();
+            for (int i = 0; i < buckets.length; i++) {
+                if (!buckets[i].tryAcquire(now)) {
+                    refundUpTo(i);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** 허용될 때까지 최대 timeout만큼 기다린다. 시간 안에 허용되지 않으면 false. */
+        boolean acquire(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!tryAcquire()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                long now = System.nanoTime();
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(Math.min(remaining, nanosUntilAvailable(now)));
+            }
+            return true;
+        }
+
+        private void refundUpTo(int exclusiveIndex) {
+            for (int i = 0; i < exclusiveIndex; i++) {
+                buckets[i].refund();
+            }
+        }
+
+        private long nanosUntilAvailable(long nowNanos) {
+            long wait = 0;
+            for (TokenBucket bucket : buckets) {
+                wait = Math.max(wait, bucket.nanosUntilAvailable(nowNanos));
+            }
+            // 다른 스레드와 경합해 다시 거절될 수 있으므로 최소 대기 시간을 둔다
+            return Math.max(wait, TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    /**
+     * LongAdder 방식의 스트라이프 카운터.
+     *
+     * 스레드마다 고정된 셀(cell)을 배정해 서로 다른 캐시 라인에서 증가시키므로,
+     * 단일 AtomicInteger처럼 모든 스레드가 한 캐시 라인을 두고 경쟁하지 않는다.
+     * 대신 읽을 때는 모든 셀을 더해야 한다.
+     */
+    static final class StripedCounter {
+        // 셀 사이를 64바이트 이상 벌려 false sharing을 막는다 (long 8개 = 64바이트, 여유를 두어 16개)
+        private static final int PADDING_STRIDE = 16;
+        private static final int STRIPE_COUNT = nextPowerOfTwo(Runtime.getRuntime().availableProcessors() * 2);
+        private static final int MAX_STABLE_SUM_ATTEMPTS = 3;
+
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPE_COUNT * PADDING_STRIDE);
+        // 정확한 합계를 위해 쓰기를 잠시 멈춰 달라고 요청한 읽기 수. 평소에는 0이라 쓰기는 읽기만 하고 지나간다.
+        private final AtomicInteger pausingReaders = new AtomicInteger();
+
+        void increment() {
+            add(1);
+        }
+
+        /** 증가만 허용한다. sum()의 "두 번 읽어 같으면 정확" 논리가 셀 값이 줄지 않는다는 전제에 기대기 때문이다. */
+        void add(long delta) {
+            if (delta < 0) {
+                throw new IllegalArgumentException("StripedCounter only counts up: " + delta);
+            }
+            while (pausingReaders.get() != 0) {
+                Thread.yield();
+            }
+            cells.getAndAdd(stripeOfCurrentThread() * PADDING_STRIDE, delta);
+        }
+
+        /**
+         * 정확한 합계. 모든 셀을 두 번 연속으로 읽어 같은 값이 나오면 그 값을 돌려준다.
+         * 증가만 하는 카운터에서는 두 번의 합이 같으면 그 사이 어느 시점의 실제 합계와 일치한다.
+         * 쓰기가 계속 몰려 몇 번 만에 맞지 않으면, 새 쓰기를 잠시 멈추게 한 뒤 다시 읽는다.
+         * 그때는 이미 진행 중이던 쓰기만 끝나면 값이 멈추므로 반드시 정확한 값으로 끝난다.
+         */
+        long sum() {
+            long previous = approximateSum();
+            for (int attempt = 0; attempt < MAX_STABLE_SUM_ATTEMPTS; attempt++) {
+                long current = approximateSum();
+                if (current == previous) {
+                    return current;
+                }
+                previous = current;
+            }
+            return sumWhileWritesPaused();
+        }
+
+        private long sumWhileWritesPaused() {
+            pausingReaders.incrementAndGet();
+            try {
+                long previous = approximateSum();
+                while (true) {
+                    long current = approximateSum();
+                    if (current == previous) {
+                        return current;
+                    }
+                    previous = current;
+                    Thread.yield();
+                }
+            } finally {
+                pausingReaders.decrementAndGet();
+            }
+        }
+
+        /** 근사 합계. 읽는 동안 진행 중인 증가분은 반영되지 않을 수 있지만 재시도가 없다. */
+        long approximateSum() {
+            long total = 0;
+            for (int i = 0; i < STRIPE_COUNT; i++) {
+                total += cells.getOpaque(i * PADDING_STRIDE);
+            }
+            return total;
+        }
+
+        // 스레드 id는 순차적으로 발급되므로 하위 비트만으로도 스레드가 셀에 고르게 흩어진다
+        private static int stripeOfCurrentThread() {
+            return (int) Thread.currentThread().getId() & (STRIPE_COUNT - 1);
+        }
+
+        private static int nextPowerOfTwo(int value) {
+            return Integer.highestOneBit(Math.max(1, value - 1)) << 1;
+        }
+    }
+
+    /**
+     * 최근 일정 시간 동안의 횟수를 세는 시간 버킷 링.
+     *
+     * 버킷 하나에 "버킷 번호(tick)"와 "횟수"를 long 하나로 묶어 저장한다.
+     * 버킷이 새 시간 구간으로 넘어갈 때의 초기화와 증가가 같은 CAS 안에서 일어나므로
+     * 초기화 도중 들어온 증가분이 사라지지 않는다.
+     */
+    static final class WindowedCounter {
+        private static final int COUNT_BITS = 32;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+        private final long bucketNanos;
+        private final int bucketCount;
+        private final long originNanos = System.nanoTime();
+        private final AtomicLongArray buckets;
+
+        WindowedCounter(Duration bucketDuration, int bucketCount) {
+            if (bucketDuration.isNegative() || bucketDuration.isZero()) {
+                throw new IllegalArgumentException("bucketDuration must be positive: " + bucketDuration);
+            }
+            if (bucketCount <= 0) {
+                throw new IllegalArgumentException("bucketCount must be > 0: " + bucketCount);
+            }
+            this.bucketNanos = bucketDuration.toNanos();
+            this.bucketCount = bucketCount;
+            this.buckets = new AtomicLongArray(bucketCount);
+        }
+
+        void increment() {
+            long tick = currentTick();
+            int index = (int) (tick % bucketCount);
+            long tickTag = tick & COUNT_MASK;
+
+            while (true) {
+                long packed = buckets.get(index);
+                long next = (packed >>> COUNT_BITS) == tickTag
+                        ? packed + 1
+                        : (tickTag << COUNT_BITS) | 1;
+                if (buckets.compareAndSet(index, packed, next)) {
+                    return;
+                }
+            }
+        }
+
+        /** window 안에 들어오는 버킷(현재 진행 중인 버킷 포함)의 합계 */
+        long countWithin(Duration window) {
+            long windowBuckets = Math.min(bucketCount, Math.max(1, window.toNanos() / bucketNanos));
+            long currentTick = currentTick();
+            long total = 0;
+
+            for (long tick = currentTick - windowBuckets + 1; tick <= currentTick; tick++) {
+                if (tick < 0) continue;
+                long packed = buckets.get((int) (tick % bucketCount));
+                if ((packed >>> COUNT_BITS) == (tick & COUNT_MASK)) {
+                    total += packed & COUNT_MASK;
+                }
+            }
+            return total;
+        }
+
+        private long currentTick() {
+            return (System.nanoTime() - originNanos) / bucketNanos;
+        }
+    }
+
+    /**
+     * 같은 호스트의 여러 JVM이 하나의 호출 예산을 나눠 쓰는 슬라이딩 윈도우 rate limiter.
+     *
+     * JVM마다 따로 세면 프로세스 수만큼 외부 API 제한을 넘게 되므로,
+     * 메모리 맵 파일에 "최근 허용된 호출 시각"을 limit개 슬롯으로 저장하고 모든 프로세스가 공유한다.
+     * 윈도우보다 오래된 슬롯이 하나라도 있으면 그 슬롯을 CAS로 현재 시각으로 바꾸는 데 성공한 쪽만 허용된다.
+     * → 어느 윈도우 안에서도 허용된 호출은 limit개를 넘지 않는다.
+     *
+     * 프로세스 간에 비교 가능한 시계가 필요하므로 System.nanoTime() 대신 epoch 밀리초를 쓴다.
+     * 벽시계가 뒤로 가면 잠시 더 보수적으로(적게) 허용될 뿐 제한을 넘지는 않는다.
+     */
+    static final class SharedFileRateLimiter implements AutoCloseable {
+        private static final long MAGIC = 0x434D4E54524C4D31L; // "CMNTRLM1"
+        private static final int MAGIC_OFFSET = 0;
+        private static final int LIMIT_OFFSET = 8;
+        private static final int WINDOW_OFFSET = 16;
+        private static final int SLOTS_OFFSET = 64;
+
+        // 직접(direct) 버퍼의 8바이트 정렬 위치에 대해서는 VarHandle의 CAS가 원자적으로 동작한다
+        private static final VarHandle LONG_SLOT =
+                MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int limit;
+        private final long windowMillis;
+
+        private SharedFileRateLimiter(FileChannel channel, MappedByteBuffer buffer, int limit, long windowMillis) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.limit = limit;
+            this.windowMillis = windowMillis;
+        }
+
+        /**
+         * 파일을 열거나 새로 만든다. 이미 다른 설정으로 만들어진 파일이면 예외를 던진다
+         * (프로세스마다 다른 제한을 쓰면 공유 예산의 의미가 없어지므로).
+         */
+        static SharedFileRateLimiter open(Path file, int limit, Duration window) throws IOException {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("limit must be > 0: " + limit);
+            }
+            if (window.isNegative() || window.isZero()) {
+                throw new IllegalArgumentException("window must be positive: " + window);
+            }
+
+            long fileSize = SLOTS_OFFSET + (long) limit * Long.BYTES;
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                MappedByteBuffer buffer;
+                // 헤더 초기화는 처음 한 번만, 파일 락으로 프로세스 간 경쟁을 막는다
+                FileLock headerLock = channel.lock();
+                try {
+                    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+                    initializeOrVerifyHeader(buffer, limit, window.toMillis());
+                } finally {
+                    headerLock.release();
+                }
+                return new SharedFileRateLimiter(channel, buffer, limit, window.toMillis());
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private static void initializeOrVerifyHeader(MappedByteBuffer buffer, int limit, long windowMillis) {
+            long magic = buffer.getLong(MAGIC_OFFSET);
+            if (magic == 0) {
+                buffer.putLong(LIMIT_OFFSET, limit);
+                buffer.putLong(WINDOW_OFFSET, windowMillis);
+                buffer.putLong(MAGIC_OFFSET, MAGIC);
+                buffer.force();
+                return;
+            }
+            if (magic != MAGIC) {
+                throw new IllegalStateException("not a rate limiter file (bad magic)");
+            }
+            if (buffer.getLong(LIMIT_OFFSET) != limit || buffer.getLong(WINDOW_OFFSET) != windowMillis) {
+                throw new IllegalStateException("rate limiter file was created with a different limit/window");
+            }
+        }
+
+        boolean tryAcquire() {
+            long now = System.currentTimeMillis();
+            long expiredBefore = now - windowMillis;
+
+            for (int slot = 0; slot < limit; slot++) {
+                int offset = SLOTS_OFFSET + slot * Long.BYTES;
+                long grantedAt = (long) LONG_SLOT.getVolatile(buffer, offset);
+                if (grantedAt <= expiredBefore
+                        && LONG_SLOT.compareAndSet(buffer, offset, grantedAt, now)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** 윈도우 안에서 이미 사용된 호출 수 (모든 프로세스 합계) */
+        int usedWithinWindow() {
+            long expiredBefore = System.currentTimeMillis() - windowMillis;
+            int used = 0;
+            for (int slot = 0; slot < limit; slot++) {
+                if ((long) LONG_SLOT.getVolatile(buffer, SLOTS_OFFSET + slot * Long.BYTES) > expiredBefore) {
+                    used++;
+                }
+            }
+            return used;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * SharedFileRateLimiter 다중 프로세스 검증용 실행 클래스.
+     *
+     * 인자 없이 실행하면 임시 파일을 만들고 같은 클래스를 워커 모드로 여러 JVM에 띄운 뒤,
+     * 모든 워커가 허용받은 호출 수의 합이 공유 예산을 넘지 않는지 확인한다.
+     *   java Comment$SharedRateLimiterHarness
+     */
+    static final class SharedRateLimiterHarness {
+        private static final int PROCESS_COUNT = 4;
+        private static final int LIMIT_PER_WINDOW = 10;
+        private static final Duration WINDOW = Duration.ofSeconds(1);
+        private static final Duration RUN_TIME = Duration.ofSeconds(3);
+
+        public static void main(String[] args) throws Exception {
+            if (args.length == 1) {
+                runWorker(Path.of(args[0]));
+                return;
+            }
+
+            Path sharedFile = Files.createTempFile("comment-rate-limiter", ".bin");
+            try {
+                long totalGranted = runWorkers(sharedFile);
+                // 실행 시간 동안 겹치지 않는 윈도우 수 + 시작 시점의 한 윈도우
+                long maxAllowed = LIMIT_PER_WINDOW * (RUN_TIME.toMillis() / WINDOW.toMillis() + 1);
+
+                System.out.printf("프로세스 %d개 합계 허용: %d회 (상한 %d회)%n",
+                        PROCESS_COUNT, totalGranted, maxAllowed);
+                if (totalGranted > maxAllowed) {
+                    throw new IllegalStateException("shared budget exceeded: " + totalGranted + " > " + maxAllowed);
+                }
+                System.out.println("공유 예산 준수 확인 완료");
+            } finally {
+                Files.deleteIfExists(sharedFile);
+            }
+        }
+
+        private static long runWorkers(Path sharedFile) throws IOException, InterruptedException {
+            String javaBinary = ProcessHandle.current().info().command().orElse("java");
+            String classPath = System.getProperty("java.class.path");
+
+            List<Process> workers = new ArrayList<>();
+            for (int i = 0; i < PROCESS_COUNT; i++) {
+                workers.add(new ProcessBuilder(javaBinary, "-cp", classPath,
+                        SharedRateLimiterHarness.class.getName(), sharedFile.toString())
+                        .redirectErrorStream(true)
+                        .start());
+            }
+
+            long totalGranted = 0;
+            for (Process worker : workers) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(worker.getInputStream()))) {
+                    String lastLine = null;
+                    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                        lastLine = line;
+                    }
+                    if (worker.waitFor() != 0 || lastLine == null) {
+                        throw new IllegalStateException("worker failed: " + lastLine);
+                    }
+                    totalGranted += Long.parseLong(lastLine.trim());
+                }
+            }
+            return totalGranted;
+        }
+
+        private static void runWorker(Path sharedFile) throws IOException {
+            long granted = 0;
+            long deadline = System.nanoTime() + RUN_TIME.toNanos();
+
+            try (SharedFileRateLimiter limiter = SharedFileRateLimiter.open(sharedFile, LIMIT_PER_WINDOW, WINDOW)) {
+                while (System.nanoTime() < deadline) {
+                    if (limiter.tryAcquire()) granted++;
+                    else                      Thread.onSpinWait();
+                }
+            }
+            System.out.println(granted);
+        }
+    }
+
+    // ========== 결제 파이프라인 ==========
+
+    static final class PaymentRequest {
+        private final String idempotencyKey;
+        private final String accountId;
+        private final long amount; // 최소 통화 단위(원). double 반올림 오차를 피하기 위함
+
+        PaymentRequest(String idempotencyKey, String accountId, long amount) {
+            if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+                throw new IllegalArgumentException("idempotencyKey is required");
+            }
+            this.idempotencyKey = idempotencyKey;
+            this.accountId = accountId;
+            this.amount = amount;
+        }
+
+        String getIdempotencyKey() { return idempotencyKey; }
+        String getAccountId() { return accountId; }
+        long getAmount() { return amount; }
+    }
+
+    enum PaymentResult { SETTLED, INVALID, DECLINED, CAPTURE_FAILED }
+
+    static class PaymentDeclinedException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        PaymentDeclinedException(String message) {
+            super(message);
+        }
+    }
+
+    /** 외부 PG사 API 경계. 매입(capture)과 정산(settle)은 건별 호출 비용을 줄이기 위해 묶음 단위로 받는다. */
+    interface PaymentGateway {
+        String authorize(PaymentRequest request) throws PaymentDeclinedException;
+
+        /** 승인 번호 묶음을 매입하고, 각 건의 성공 여부를 같은 순서로 반환한다. */
+        boolean[] captureBatch(List<String> authorizationIds);
+
+        void settleBatch(List<String> authorizationIds);
+    }
+
+    /**
+     * 실제 PG사 대신 쓰는 로컬 대역. 호출마다 네트워크 왕복 시간을 흉내 내며,
+     * 한도를 넘는 금액은 승인을 거절한다.
+     */
+    static final class LocalPaymentGateway implements PaymentGateway {
+        private static final long ROUND_TRIP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+        private static final long APPROVAL_LIMIT = 10_000_000;
+
+        private final AtomicLong nextAuthorizationId = new AtomicLong();
+        private final AtomicLong capturedCount = new AtomicLong();
+
+        @Override
+        public String authorize(PaymentRequest request) throws PaymentDeclinedException {
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+            if (request.getAmount() > APPROVAL_LIMIT) {
+                throw new PaymentDeclinedException("approval limit exceeded: " + request.getIdempotencyKey());
+            }
+            return "AUTH-" + nextAuthorizationId.incrementAndGet();
+        }
+
+        @Override
+        public boolean[] captureBatch(List<String> authorizationIds) {
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+            capturedCount.addAndGet(authorizationIds.size());
+            boolean[] captured = new boolean[authorizationIds.size()];
+            Arrays.fill(captured, true);
+            return captured;
+        }
+
+        @Override
+        public void settleBatch(List<String> authorizationIds) {
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+        }
+
+        long capturedCount() {
+            return capturedCount.get();
+        }
+    }
+
+    /**
+     * 검증 → 승인 → 매입 → 정산 단계를 크기 제한 큐로 연결한 결제 파이프라인.
+     *
+     * - 단계 사이의 큐가 가득 차면 앞 단계(최종적으로 submit 호출자)가 기다린다 → 메모리 사용량이 제한된다.
+     * - 승인은 건별 호출이라 여러 스레드가 게이트웨이를 동시에 호출하고,
+     *   매입/정산은 큐에 쌓인 만큼 묶어서 한 번에 호출한다.
+     * - 같은 멱등 키로 다시 제출하면 새로 결제하지 않고 처음 제출의 결과를 그대로 돌려준다.
+     *   단, 매입 실패나 예외로 끝난 결과는 키에서 지워서 다시 제출하면 새로 시도하게 한다.
+     * - 매입에 실패한 승인 번호는 남겨 두었다가, 같은 키로 다시 제출하면 새로 승인받지 않고 그 번호로 매입한다
+     *   (재시도마다 승인이 하나씩 쌓여 고객 한도가 묶이지 않도록).
+     * - 끝난 결과와 남겨 둔 승인 번호는 idempotencyTtl이 지나면 지운다. TTL이 모두 같으므로
+     *   끝난 순서대로 큐에 넣고 submit할 때 앞에서부터 만료된 것만 치운다 → 메모리는 TTL 동안의 처리량으로 제한된다.
+     */
+    static final class PaymentPipeline implements AutoCloseable {
+        static final Duration DEFAULT_IDEMPOTENCY_TTL = Duration.ofMinutes(10);
+        private static final long POLL_INTERVAL_MILLIS = 10;
+
+        private final PaymentGateway gateway;
+        private final int batchSize;
+        private final long idempotencyTtlNanos;
+        private final Map<String, CompletableFuture<PaymentResult>> resultsByIdempotencyKey = new ConcurrentHashMap<>();
+        private final Map<String, String> uncapturedAuthorizationsByKey = new ConcurrentHashMap<>();
+        private final Queue<RetainedEntry> retainedEntriesByExpiry = new ConcurrentLinkedQueue<>();
+
+        private final BlockingQueue<PendingPayment> validationQueue;
+        private final BlockingQueue<PendingPayment> authorizationQueue;
+        private final BlockingQueue<PendingPayment> captureQueue;
+        private final BlockingQueue<PendingPayment> settlementQueue;
+        private final List<Stage> stages = new ArrayList<>();
+
+        // submit은 읽기 락, close는 쓰기 락: close가 끝난 뒤에 큐에 들어가는 결제가 생기지 않는다
+        private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+        private boolean accepting = true;
+
+        private PaymentPipeline(PaymentGateway gateway, int batchSize, int queueCapacity, Duration idempotencyTtl) {
+            this.gateway = gateway;
+            this.batchSize = batchSize;
+            this.idempotencyTtlNanos = idempotencyTtl.toNanos();
+            this.validationQueue = new ArrayBlockingQueue<>(queueCapacity);
+            this.authorizationQueue = new ArrayBlockingQueue<>(queueCapacity);
+            this.captureQueue = new ArrayBlockingQueue<>(queueCapacity);
+            this.settlementQueue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        static PaymentPipeline start(PaymentGateway gateway, int authorizerThreads, int batchSize, int queueCapacity) {
+            return start(gateway, authorizerThreads, batchSize, queueCapacity, DEFAULT_IDEMPOTENCY_TTL);
+        }
+
+        static PaymentPipeline start(PaymentGateway gateway, int authorizerThreads, int batchSize, int queueCapacity,
+                                     Duration idempotencyTtl) {
+            if (authorizerThreads <= 0 || batchSize <= 0 || queueCapacity <= 0) {
+                throw new IllegalArgumentException("threads, batchSize and queueCapacity must be > 0");
+            }
+            if (idempotencyTtl.isNegative() || idempotencyTtl.isZero()) {
+                throw new IllegalArgumentException("idempotencyTtl must be > 0: " + idempotencyTtl);
+            }
+            PaymentPipeline pipeline = new PaymentPipeline(gateway, batchSize, queueCapacity, idempotencyTtl);
+            pipeline.startStages(authorizerThreads);
+            return pipeline;
+        }
+
+        /**
+         * 결제를 제출한다. 파이프라인이 가득 차 있으면 자리가 날 때까지 기다린다.
+         * 이미 제출된 멱등 키라면 기존 결과(진행 중이면 진행 중인 결과)를 반환한다.
+         */
+        CompletableFuture<PaymentResult> submit(PaymentRequest request) throws InterruptedException {
+            lifecycleLock.readLock().lock();
+            try {
+                if (!accepting) {
+                    throw new IllegalStateException("pipeline is closed");
+                }
+                expireRetainedEntries(System.nanoTime());
+                String idempotencyKey = request.getIdempotencyKey();
+                CompletableFuture<PaymentResult> result = new CompletableFuture<>();
+                CompletableFuture<PaymentResult> existing = resultsByIdempotencyKey.putIfAbsent(idempotencyKey, result);
+                if (existing != null) {
+                    return existing;
+                }
+                result.whenComplete((outcome, failure) -> forgetIfRetryable(idempotencyKey, result, outcome, failure));
+
+                try {
+                    validationQueue.put(new PendingPayment(request, result));
+                } catch (InterruptedException e) {
+                    result.completeExceptionally(e);
+                    throw e;
+                }
+                return result;
+            } finally {
+                lifecycleLock.readLock().unlock();
+            }
+        }
+
+        /**
+         * 더 이상 제출을 받지 않고, 이미 들어온 결제가 모든 단계를 통과할 때까지 기다린다.
+         * 기다리는 중에 인터럽트되면 끝나지 않은 결제를 실패로 완료하고 인터럽트 상태를 되살린다.
+         */
+        @Override
+        public void close() {
+            lifecycleLock.writeLock().lock();
+            try {
+                accepting = false;
+            } finally {
+                lifecycleLock.writeLock().unlock();
+            }
+
+            try {
+                for (Stage stage : stages) {
+                    stage.finish();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failUnfinishedPayments(e);
+            }
+        }
+
+        // 승인 거절/검증 실패는 다시 보내도 결과가 같으므로 TTL 동안 남기고, 일시적인 실패는 바로 지운다
+        private void forgetIfRetryable(String idempotencyKey, CompletableFuture<PaymentResult> result,
+                                       PaymentResult outcome, Throwable failure) {
+            if (failure != null || outcome == PaymentResult.CAPTURE_FAILED) {
+                resultsByIdempotencyKey.remove(idempotencyKey, result);
+            } else {
+                retainedEntriesByExpiry.add(new RetainedEntry(idempotencyKey, result, null,
+                        System.nanoTime() + idempotencyTtlNanos));
+            }
+        }
+
+        // 재시도 때 다시 쓰도록 남긴다. 결과를 실패로 완료하기 전에 불러야 재시도가 이 번호를 본다.
+        private void retainUncapturedAuthorization(PendingPayment payment) {
+            String idempotencyKey = payment.request.getIdempotencyKey();
+            uncapturedAuthorizationsByKey.put(idempotencyKey, payment.authorizationId);
+            retainedEntriesByExpiry.add(new RetainedEntry(idempotencyKey, null, payment.authorizationId,
+                    System.nanoTime() + idempotencyTtlNanos));
+        }
+
+        // 큐 앞쪽의 만료된 항목만 본다. 같은 키로 새 값이 들어와 있으면 remove(key, value)가 아무것도 지우지 않는다.
+        private void expireRetainedEntries(long now) {
+            synchronized (retainedEntriesByExpiry) {
+                RetainedEntry oldest;
+                while ((oldest = retainedEntriesByExpiry.peek()) != null && now - oldest.expiresAtNanos >= 0) {
+                    retainedEntriesByExpiry.poll();
+                    if (oldest.result != null) {
+                        resultsByIdempotencyKey.remove(oldest.idempotencyKey, oldest.result);
+                    }
+                    if (oldest.authorizationId != null) {
+                        uncapturedAuthorizationsByKey.remove(oldest.idempotencyKey, oldest.authorizationId);
+                    }
+                }
+            }
+        }
+
+        int retainedKeyCount() {
+            return resultsByIdempotencyKey.size() + uncapturedAuthorizationsByKey.size();
+        }
+
+        private void failUnfinishedPayments(InterruptedException cause) {
+            for (CompletableFuture<PaymentResult> result : resultsByIdempotencyKey.values()) {
+                result.completeExceptionally(cause);
+            }
+        }
+
+        private void startStages(int authorizerThreads) {
+            stages.add(new Stage("payment-validate", 1, validationQueue, 1, this::validate));
+            stages.add(new Stage("payment-authorize", authorizerThreads, authorizationQueue, 1, this::authorize));
+            stages.add(new Stage("payment-capture", 1, captureQueue, batchSize, this::capture));
+            stages.add(new Stage("payment-settle", 1, settlementQueue, batchSize, this::settle));
+        }
+
+        private void validate(List<PendingPayment> payments) throws InterruptedException {
+            for (PendingPayment payment : payments) {
+                PaymentRequest request = payment.request;
+                boolean valid = request.getAmount() > 0
+                        && request.getAccountId() != null && !request.getAccountId().isEmpty();
+                if (valid) {
+                    authorizationQueue.put(payment);
+                } else {
+                    payment.result.complete(PaymentResult.INVALID);
+                }
+            }
+        }
+
+        private void authorize(List<PendingPayment> payments) throws InterruptedException {
+            for (PendingPayment payment : payments) {
+                try {
+                    String uncaptured = uncapturedAuthorizationsByKey.remove(payment.request.getIdempotencyKey());
+                    payment.authorizationId = uncaptured != null ? uncaptured : gateway.authorize(payment.request);
+                    captureQueue.put(payment);
+                } catch (PaymentDeclinedException e) {
+                    payment.result.complete(PaymentResult.DECLINED);
+                }
+            }
+        }
+
+        private void capture(List<PendingPayment> payments) throws InterruptedException {
+            boolean[] captured = gateway.captureBatch(authorizationIdsOf(payments));
+            for (int i = 0; i < payments.size(); i++) {
+                if (captured[i]) {
+                    settlementQueue.put(payments.get(i));
+                } else {
+                    retainUncapturedAuthorization(payments.get(i));
+                    payments.get(i).result.complete(PaymentResult.CAPTURE_FAILED);
+                }
+            }
+        }
+
+        private void settle(List<PendingPayment> payments) {
+            gateway.settleBatch(authorizationIdsOf(payments));
+            for (PendingPayment payment : payments) {
+                payment.result.complete(PaymentResult.SETTLED);
+            }
+        }
+
+        private static List<String> authorizationIdsOf(List<PendingPayment> payments) {
+            List<String> authorizationIds = new ArrayList<>(payments.size());
+            for (PendingPayment payment : payments) {
+                authorizationIds.add(payment.authorizationId);
+            }
+            return authorizationIds;
+        }
+
+        private static final class PendingPayment {
+            private final PaymentRequest request;
+            private final CompletableFuture<PaymentResult> result;
+            private String authorizationId;
+
+            private PendingPayment(PaymentRequest request, CompletableFuture<PaymentResult> result) {
+                this.request = request;
+                this.result = result;
+            }
+        }
+
+        // TTL이 지나면 지울 멱등 결과 또는 매입 못 한 승인 번호 (둘 중 하나만 있다)
+        private static final class RetainedEntry {
+            private final String idempotencyKey;
+            private final CompletableFuture<PaymentResult> result;
+            private final String authorizationId;
+            private final long expiresAtNanos;
+
+            private RetainedEntry(String idempotencyKey, CompletableFuture<PaymentResult> result,
+                                  String authorizationId, long expiresAtNanos) {
+                this.idempotencyKey = idempotencyKey;
+                this.result = result;
+                this.authorizationId = authorizationId;
+                this.expiresAtNanos = expiresAtNanos;
+            }
+        }
+
+        private interface BatchHandler {
+            void handle(List<PendingPayment> payments) throws InterruptedException;
+        }
+
+        /** 입력 큐에서 최대 maxBatch건씩 꺼내 처리하는 스레드 묶음 */
+        private static final class Stage {
+            private final BlockingQueue<PendingPayment> input;
+            private final int maxBatch;
+            private final BatchHandler handler;
+            private final List<Thread> workers = new ArrayList<>();
+            private volatile boolean upstreamFinished;
+
+            private Stage(String name, int threadCount, BlockingQueue<PendingPayment> input,
+                          int maxBatch, BatchHandler handler) {
+                this.input = input;
+                this.maxBatch = maxBatch;
+                this.handler = handler;
+                for (int i = 0; i < threadCount; i++) {
+                    Thread worker = new Thread(this::run, name + "-" + i);
+                    worker.setDaemon(true);
+                    workers.add(worker);
+                    worker.start();
+                }
+            }
+
+            private void run() {
+                List<PendingPayment> batch = new ArrayList<>(maxBatch);
+                try {
+                    while (!upstreamFinished || !input.isEmpty()) {
+                        PendingPayment first = input.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                        if (first == null) continue;
+
+                        batch.add(first);
+                        input.drainTo(batch, maxBatch - 1);
+                        handleSafely(batch);
+                        batch.clear();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            private void handleSafely(List<PendingPayment> batch) throws InterruptedException {
+                try {
+                    handler.handle(batch);
+                } catch (RuntimeException e) {
+                    // 게이트웨이 장애가 스레드를 죽이지 않도록, 해당 묶음만 실패로 끝낸다
+                    for (PendingPayment payment : batch) {
+                        payment.result.completeExceptionally(e);
+                    }
+                }
+            }
+
+            private void finish() throws InterruptedException {
+                upstreamFinished = true;
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -1,8 +1,15 @@
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 클린 코드 포매팅 원칙을 보여주는 실행 가능한 예제 클래스
@@ -91,6 +98,22 @@ public class Formatter {
         );
 
         System.out.println("커스텀 처리 결과: " + customResult);
+
+        System.out.println();
+        System.out.println("=== 적응형 동시 처리 예시 ===");
+
+        // 동시 실행 상한은 고정값이 아니라 관측된 지연/실패율로 조절된다
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.forTimeout(DEFAULT_TIMEOUT);
+        ProcessingResult concurrentResult = processor.processTasksConcurrently(tasks, limiter);
+
+        System.out.println("동시 처리 결과: " + concurrentResult);
+        System.out.println("현재 동시 실행 상한: " + limiter.currentLimit());
+
+        System.out.println();
+        System.out.println("=== 용량 변화 시뮬레이션 ===");
+
+        // 백엔드 용량이 실행 도중 16 → 4 → 16으로 바뀔 때 상한이 따라 움직이는지 확인
+        simulateCapacityChange(new int[]{16, 4, 16}, Duration.ofSeconds(1));
     }
 
     // ─────────────────────────────────────────────────────────────────────────────
@@ -132,6 +155,81 @@ public class Formatter {
         return new ProcessingResult(success, failure);
     }
 
+    /**
+     * 작업 목록을 동시에 처리하되, 동시에 실행되는 작업 수는 limiter가 정합니다.
+     * - 고정 상한은 낮으면 처리량을 버리고 높으면 과부하를 부르므로, 상한을 관측값으로 찾아간다.
+     * - 허용량이 없으면 제출하는 쪽에서 대기 → 대기 중인 작업이 스레드를 점유하지 않는다.
+     */
+    public ProcessingResult processTasksConcurrently(List<String> tasks, AdaptiveConcurrencyLimiter limiter) {
+        if (tasks == null || tasks.isEmpty()) {
+            return ProcessingResult.empty();
+        }
+        Objects.requireNonNull(limiter, "limiter must not be null");
+
+        int success = 0;
+        int failure = 0;
+        List<Future<Boolean>> submitted = new ArrayList<>();
+        ExecutorService executor = Executors.newCachedThreadPool();
+
+        try {
+            for (String task : tasks) {
+                if (isBlank(task)) {
+                    failure++;
+                    continue;
+                }
+
+                limiter.acquire();
+                submitted.add(executor.submit(() -> runWithLimiter(task, limiter)));
+            }
+
+            for (Future<Boolean> outcome : submitted) {
+                if (awaitOutcome(outcome)) success++;
+                else                       failure++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure += tasks.size() - success - failure;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new ProcessingResult(success, failure);
+    }
+
+    /**
+     * 용량이 단계별로 바뀌는 가상 백엔드에 limiter를 붙여 돌리고, 단계마다 상한의 변화를 출력합니다.
+     * - 워커 수는 최대 용량보다 넉넉하게 두어, 동시 실행 수를 막는 것은 오직 limiter가 되게 한다.
+     */
+    public static void simulateCapacityChange(int[] capacityPhases, Duration phaseDuration) {
+        Objects.requireNonNull(capacityPhases, "capacityPhases must not be null");
+        Objects.requireNonNull(phaseDuration, "phaseDuration must not be null");
+
+        SimulatedBackend backend = new SimulatedBackend(capacityPhases[0]);
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.of(4, 1, 64,
+                SimulatedBackend.LATENCY_THRESHOLD, 0.7, 0.2);
+        int workerCount = Arrays.stream(capacityPhases).max().orElse(1) * 2;
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(() -> callUntilInterrupted(backend, limiter));
+        }
+
+        try {
+            for (int capacity : capacityPhases) {
+                backend.changeCapacity(capacity);
+                long callsBefore = backend.completedCalls();
+                Thread.sleep(phaseDuration.toMillis());
+
+                System.out.printf("  용량 %2d → 동시 실행 상한 %2d, 완료 호출 %d건%n",
+                        capacity, limiter.currentLimit(), backend.completedCalls() - callsBefore);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
     // ─────────────────────────────────────────────────────────────────────────────
     // 5) 비공개 헬퍼: 상세 구현은 아래로. 이름으로 의도를 드러내고, 정렬로 "모양 맞추기" 금지
     // ─────────────────────────────────────────────────────────────────────────────
@@ -174,6 +272,47 @@ public class Formatter {
         return RANDOM.nextDouble() < successRate;
     }
 
+    private boolean runWithLimiter(String name, AdaptiveConcurrencyLimiter limiter) {
+        // 시도마다 지연/성공 여부를 limiter에 보고하고, 허용량은 작업이 끝날 때 한 번만 반납
+        try {
+            for (int attempt = 0; attempt <= retryLimit; attempt++) {
+                long startedAt = System.nanoTime();
+                boolean ok = invoke(name, timeout);
+                limiter.recordSample(System.nanoTime() - startedAt, ok);
+
+                if (ok) return true;
+            }
+            return false;
+        } finally {
+            limiter.release();
+        }
+    }
+
+    private static void callUntilInterrupted(SimulatedBackend backend, AdaptiveConcurrencyLimiter limiter) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                limiter.acquire();
+                try {
+                    long startedAt = System.nanoTime();
+                    boolean ok = backend.call();
+                    limiter.recordSample(System.nanoTime() - startedAt, ok);
+                } finally {
+                    limiter.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean awaitOutcome(Future<Boolean> outcome) throws InterruptedException {
+        try {
+            return outcome.get();
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
     private boolean isBlank(String s) {
         return s == null || s.trim().isEmpty();
     }
@@ -233,4 +372,184 @@ public class Formatter {
             return 31 * successCount + failureCount;
         }
     }
-}
\ No newline at end of file
+
+    // ─────────────────────────────────────────────────────────────────────────────
+    // 7) 동시성 제어: 관측값(지연, 실패율)으로 동시 실행 상한을 조절하는 AIMD limiter
+    // ─────────────────────────────────────────────────────────────────────────────
+
+    /**
+     * AIMD(Additive Increase / Multiplicative Decrease) 방식의 적응형 동시성 limiter.
+     * - 상한만큼 샘플이 모이면 한 번 평가한다(샘플 하나에 과민 반응하지 않도록).
+     * - 평균 지연이 기준을 넘거나 실패율이 허용치를 넘으면 상한을 비율만큼 줄인다.
+     * - 그렇지 않고 상한을 실제로 꽉 채워 썼다면 1만큼 늘린다(쓰지도 않은 상한은 늘리지 않음).
+     */
+    public static final class AdaptiveConcurrencyLimiter {
+        private static final int DEFAULT_INITIAL_LIMIT = 4;
+        private static final int DEFAULT_MIN_LIMIT = 1;
+        private static final int DEFAULT_MAX_LIMIT = 64;
+        private static final double DEFAULT_BACKOFF_RATIO = 0.7;
+        private static final double DEFAULT_TOLERATED_FAILURE_RATE = 0.2;
+
+        private final int minLimit;
+        private final int maxLimit;
+        private final long latencyThresholdNanos;
+        private final double backoffRatio;
+        private final double toleratedFailureRate;
+
+        // 아래 필드는 모두 this 모니터로 보호된다
+        private int limit;
+        private int inFlight;
+        private int windowSamples;
+        private int windowFailures;
+        private long windowLatencyNanos;
+        private int windowPeakInFlight;
+
+        private AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                           Duration latencyThreshold, double backoffRatio,
+                                           double toleratedFailureRate) {
+            if (minLimit < 1 || maxLimit < minLimit) {
+                throw new IllegalArgumentException("limits must satisfy 1 <= min <= max: " + minLimit + ", " + maxLimit);
+            }
+            if (initialLimit < minLimit || initialLimit > maxLimit) {
+                throw new IllegalArgumentException("initialLimit out of range: " + initialLimit);
+            }
+            if (backoffRatio <= 0 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("backoffRatio must be in (0, 1): " + backoffRatio);
+            }
+            if (toleratedFailureRate < 0 || toleratedFailureRate > 1) {
+                throw new IllegalArgumentException("toleratedFailureRate must be in [0, 1]: " + toleratedFailureRate);
+            }
+            this.limit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.latencyThresholdNanos = Objects.requireNonNull(latencyThreshold, "latencyThreshold must not be null")
+                    .toNanos();
+            this.backoffRatio = backoffRatio;
+            this.toleratedFailureRate = toleratedFailureRate;
+        }
+
+        /**
+         * 작업 타임아웃을 지연 기준으로 쓰는 기본 limiter.
+         * 실패율 허용치는 20%로 둔다. 이보다 높으면 실패가 몰려도 상한을 거의 줄이지 못한다.
+         * (invoke()는 성공률 20~80%인 예시라, 이 limiter로 돌리면 상한이 최소값 쪽으로 내려가는 것이 정상)
+         */
+        public static AdaptiveConcurrencyLimiter forTimeout(Duration timeout) {
+            return new AdaptiveConcurrencyLimiter(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT,
+                    timeout, DEFAULT_BACKOFF_RATIO, DEFAULT_TOLERATED_FAILURE_RATE);
+        }
+
+        public static AdaptiveConcurrencyLimiter of(int initialLimit, int minLimit, int maxLimit,
+                                                    Duration latencyThreshold, double backoffRatio,
+                                                    double toleratedFailureRate) {
+            return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                    latencyThreshold, backoffRatio, toleratedFailureRate);
+        }
+
+        public synchronized boolean tryAcquire() {
+            if (inFlight >= limit) {
+                return false;
+            }
+            inFlight++;
+            windowPeakInFlight = Math.max(windowPeakInFlight, inFlight);
+            return true;
+        }
+
+        public synchronized void acquire() throws InterruptedException {
+            while (!tryAcquire()) {
+                wait();
+            }
+        }
+
+        public synchronized void release() {
+            if (inFlight == 0) {
+                throw new IllegalStateException("release() without matching acquire()");
+            }
+            inFlight--;
+            notifyAll();
+        }
+
+        /**
+         * 호출 한 번의 결과를 보고합니다. 허용량 반납과는 분리되어 있어
+         * 재시도처럼 허용량 하나로 여러 번 호출하는 경우에도 샘플을 모두 반영할 수 있습니다.
+         */
+        public synchronized void recordSample(long latencyNanos, boolean succeeded) {
+            windowSamples++;
+            windowLatencyNanos += latencyNanos;
+            if (!succeeded) windowFailures++;
+
+            if (windowSamples >= limit) {
+                adjustLimit();
+            }
+        }
+
+        public synchronized int currentLimit() {
+            return limit;
+        }
+
+        public synchronized int inFlight() {
+            return inFlight;
+        }
+
+        private void adjustLimit() {
+            long averageLatencyNanos = windowLatencyNanos / windowSamples;
+            double failureRate = (double) windowFailures / windowSamples;
+
+            if (averageLatencyNanos > latencyThresholdNanos || failureRate > toleratedFailureRate) {
+                limit = Math.max(minLimit, (int) (limit * backoffRatio));
+            } else if (windowPeakInFlight >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+                notifyAll();
+            }
+
+            windowSamples = 0;
+            windowFailures = 0;
+            windowLatencyNanos = 0;
+            windowPeakInFlight = inFlight;
+        }
+    }
+
+    /**
+     * 용량을 넘는 만큼 느려지고, 용량의 3배를 넘으면 바로 거절하는 가상 백엔드(시뮬레이션 전용).
+     */
+    private static final class SimulatedBackend {
+        private static final long BASE_LATENCY_MILLIS = 5;
+        private static final int REJECT_FACTOR = 3;
+        static final Duration LATENCY_THRESHOLD = Duration.ofMillis(BASE_LATENCY_MILLIS * 3);
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder completedCalls = new LongAdder();
+        private volatile int capacity;
+
+        SimulatedBackend(int capacity) {
+            changeCapacity(capacity);
+        }
+
+        void changeCapacity(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be >= 1: " + capacity);
+            }
+            this.capacity = capacity;
+        }
+
+        long completedCalls() {
+            return completedCalls.sum();
+        }
+
+        boolean call() throws InterruptedException {
+            int concurrent = inFlight.incrementAndGet();
+            try {
+                int currentCapacity = capacity;
+                if (concurrent > currentCapacity * REJECT_FACTOR) {
+                    return false;
+                }
+                // 용량 단위로 줄을 서는 것처럼: 용량을 한 바퀴 넘을 때마다 기본 지연이 하나씩 더 붙는다
+                int rounds = (concurrent + currentCapacity - 1) / currentCapacity;
+                Thread.sleep(BASE_LATENCY_MILLIS * rounds);
+                completedCalls.increment();
+                return true;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -1,6 +1,44 @@
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.logging.Logger;
 import java.util.logging.Level;
@@ -34,6 +72,12 @@ public class Functions {
     private final AuditService auditService;
     private final SessionManager sessionManager;
 
+    // 비밀번호 해시 검증은 비싸므로 짧은 시간 동안 결과를 재사용하고, 무차별 대입은 잠금으로 막는다
+    private final CredentialVerificationCache credentialCache =
+            new CredentialVerificationCache(30_000, 100_000, () -> System.nanoTime() / 1_000_000);
+    private final LoginThrottler loginThrottler =
+            new LoginThrottler(5, 20, 1_000, 15 * 60_000, () -> System.nanoTime() / 1_000_000);
+
     public Functions() {
         this.employeeRepository = new InMemoryEmployeeRepository();
         this.emailService = new SimpleEmailService();
@@ -168,6 +212,64 @@ public class Functions {
         System.out.println("Net Salary: " + String.format("%.2f", netSalary));
     }
 
+    // 대량 급여 처리: 병렬로 계산하고, 실패한 직원은 로그 대신 dead letter로 모은다
+    // 순서가 필요 없으면 이 메서드가 더 빠르다. sink는 여러 스레드에서 동시에 호출된다.
+    public PayrollRunStatistics processEmployeesInParallel(List<Employee> employees, PayrollSink sink) {
+        PayrollRunStatistics statistics = new PayrollRunStatistics();
+        employees.parallelStream()
+                .forEach(employee -> {
+                    double netSalary = calculatePayroll(employee, statistics);
+                    if (!Double.isNaN(netSalary)) {
+                        deliverPayroll(sink, employee, netSalary, statistics);
+                    }
+                });
+        return statistics;
+    }
+
+    // 계산은 병렬로 하고, sink에는 입력 순서대로 한 스레드에서 전달한다
+    public PayrollRunStatistics processEmployeesInParallelOrdered(List<Employee> employees, PayrollSink sink) {
+        PayrollRunStatistics statistics = new PayrollRunStatistics();
+        double[] netSalaries = new double[employees.size()];
+
+        IntStream.range(0, employees.size())
+                .parallel()
+                .forEach(i -> netSalaries[i] = calculatePayroll(employees.get(i), statistics));
+
+        for (int i = 0; i < netSalaries.length; i++) {
+            if (!Double.isNaN(netSalaries[i])) {
+                deliverPayroll(sink, employees.get(i), netSalaries[i], statistics);
+            }
+        }
+        return statistics;
+    }
+
+    private void deliverPayroll(PayrollSink sink, Employee employee, double netSalary,
+                                PayrollRunStatistics statistics) {
+        try {
+            sink.accept(employee, netSalary);
+            statistics.processed.increment();
+        } catch (RuntimeException e) {
+            statistics.failed.increment();
+            statistics.deadLetters.add(new FailedPayroll(employee, e));
+        }
+    }
+
+    // 검증 실패나 계산 예외는 NaN으로 표시하고 통계에 반영한다 (한 직원의 실패가 전체를 멈추지 않도록)
+    private double calculatePayroll(Employee employee, PayrollRunStatistics statistics) {
+        try {
+            if (employee == null || !isValidEmployee(employee)) {
+                statistics.rejected.increment();
+                return Double.NaN;
+            }
+            statistics.validated.increment();
+            return calculateNetSalary(calculateTotalSalary(employee));
+        } catch (RuntimeException e) {
+            statistics.failed.increment();
+            statistics.deadLetters.add(new FailedPayroll(employee, e));
+            return Double.NaN;
+        }
+    }
+
     // ========== 3. 함수당 추상화 수준은 하나로 ==========
 
     // 나쁜 예: 여러 추상화 수준이 섞임
@@ -224,7 +326,18 @@ public class Functions {
     }
 
     private String getCurrentDateTime() {
-        return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        return LocalDateTime.now().format(EmployeeReportWriter.GENERATED_AT_FORMAT);
+    }
+
+    // 수백만 명 보고서는 파일이나 소켓으로 바로 흘려보낸다. 한 줄씩 println하지 않고 큰 버퍼 단위로 내보낸다.
+    // (출력 내용은 위의 generateReport와 같다. 구조는 같고, 쓰는 방식만 EmployeeReportWriter로 바꾼 것)
+    public void generateReport(Iterable<Employee> employees, Appendable out) throws IOException {
+        EmployeeReportWriter.to(out).writeReport(employees, LocalDateTime.now());
+    }
+
+    public void generateReport(Iterable<Employee> employees, WritableByteChannel channel) throws IOException {
+        EmployeeReportWriter.to(channel, EmployeeReportWriter.DEFAULT_BUFFER_CHARS)
+                .writeReport(employees, LocalDateTime.now());
     }
 
     // ========== 4. Switch 문은 피해라 ==========
@@ -256,6 +369,11 @@ public class Functions {
         return employee.getBenefitsCalculator().calculate(employee.getSalary());
     }
 
+    // 대량 재계산용: 직원마다 인터페이스를 호출하지 않고 계산기 종류별로 묶어서 계산
+    public double[] calculateEmployeeBenefits(List<Employee> employees) {
+        return BatchBenefitsCalculator.calculate(employees);
+    }
+
     // ========== 5. 서술적인 이름을 사용해라 ==========
 
     // 나쁜 예: 의미 없는 함수명
@@ -272,6 +390,14 @@ public class Functions {
                 .collect(Collectors.toList());
     }
 
+    // 저장소에 급여 인덱스가 있으면 전체를 훑지 않고 인덱스 범위 조회로 답한다
+    public List<Employee> getHighSalaryEmployees() {
+        if (employeeRepository instanceof SalaryRangeQueries) {
+            return ((SalaryRangeQueries) employeeRepository).findBySalaryAbove(HIGH_SALARY_THRESHOLD);
+        }
+        return getHighSalaryEmployees(employeeRepository.findAll());
+    }
+
     private boolean isHighSalaryEmployee(Employee employee) {
         return employee.getSalary() > HIGH_SALARY_THRESHOLD;
     }
@@ -284,6 +410,15 @@ public class Functions {
                 .collect(Collectors.toList());
     }
 
+    // 같은 직원 집합에 여러 조건 조회를 반복할 때는 인덱스를 한 번 만들어 재사용
+    // (한 번만 조회한다면 인덱스를 만드는 비용이 더 크므로 위의 스트림 버전이 낫다)
+    public List<Employee> getEmployeesEligibleForPromotion(EmployeeBitmapIndex index) {
+        return index.query()
+                .experienceAtLeast(MINIMUM_EXPERIENCE_YEARS)
+                .performanceRatingAtLeast(GOOD_PERFORMANCE_RATING)
+                .list();
+    }
+
     private boolean hasMinimumExperience(Employee employee) {
         return employee.getYearsOfExperience() >= MINIMUM_EXPERIENCE_YEARS;
     }
@@ -310,10 +445,24 @@ public class Functions {
     // 좋은 예: 필요한 최소한의 인수만 전달
     public double calculateMonthlyPayment(double principal, double rate, int months) {
         validateLoanParameters(principal, rate, months);
+        if (rate == 0) {
+            // 무이자: 공식이 0/0이 되므로 원금을 기간으로 나눈다
+            return principal / months;
+        }
         return principal * (rate * Math.pow(1 + rate, months)) / (Math.pow(1 + rate, months) - 1);
     }
 
-    private void validateLoanParameters(double principal, double rate, int months) {
+    // 여러 대출 조건을 한 번에 계산. 같은 (이율, 기간) 조합은 Math.pow를 한 번만 계산한다
+    public double[] calculateMonthlyPayments(double[] principals, double[] rates, int[] months) {
+        return AmortizationEngine.shared().calculateMonthlyPayments(principals, rates, months);
+    }
+
+    // 여러 대출의 상환 스케줄을 한 번에 계산. 모든 회차가 대출 순서대로 배열 하나씩에 이어 담긴다
+    public AmortizationSchedules calculateAmortizationSchedules(double[] principals, double[] rates, int[] months) {
+        return AmortizationEngine.shared().schedulesOf(principals, rates, months);
+    }
+
+    private static void validateLoanParameters(double principal, double rate, int months) {
         if (principal <= 0) throw new IllegalArgumentException("Principal must be positive");
         if (rate < 0) throw new IllegalArgumentException("Rate cannot be negative");
         if (months <= 0) throw new IllegalArgumentException("Months must be positive");
@@ -361,14 +510,29 @@ public class Functions {
 
     // 부수 효과가 필요하다면 명시적으로 분리
     public void loginUser(String userName, String password) throws AuthenticationException {
-        if (isValidPassword(userName, password)) {
+        loginUser(userName, password, null);
+    }
+
+    // 접속 출처(IP 등)를 알 수 있으면 출처 단위 시도 제한도 함께 적용
+    public void loginUser(String userName, String password, String sourceAddress) throws AuthenticationException {
+        loginThrottler.checkAllowed(userName, sourceAddress);
+
+        if (credentialCache.verify(userName, password, this::authenticateUser)) {
+            loginThrottler.recordSuccess(userName, sourceAddress);
             sessionManager.createSession(userName);
             auditService.logActivity(userName, "LOGIN");
         } else {
+            loginThrottler.recordFailure(userName, sourceAddress);
             throw new AuthenticationException("Invalid credentials for user: " + userName);
         }
     }
 
+    // 비밀번호가 바뀌면 이전 비밀번호로 캐시된 검증 결과를 즉시 무효화
+    public void recordPasswordChange(String userName) {
+        credentialCache.invalidateUser(userName);
+        auditService.logActivity(userName, "PASSWORD_CHANGED");
+    }
+
     // ========== 8. 명령과 조회를 분리해라 ==========
 
     // 나쁜 예: 명령과 조회가 섞임
@@ -379,24 +543,39 @@ public class Functions {
 
     // 좋은 예: 명령과 조회 분리
     public void setEmployeeStatus(Employee employee, String status) {
-        validateStatus(status);
+        setEmployeeStatus(employee, validateStatus(status));
+    }
+
+    public void setEmployeeStatus(Employee employee, EmployeeStatus status) {
         employee.setStatus(status);
-        auditService.logActivity(employee.getName(), "STATUS_CHANGED_TO_" + status);
+        auditService.logActivity(employee.getName(), status.getStatusChangedActivity());
     }
 
     public boolean isEmployeeActive(Employee employee) {
-        return EmployeeStatus.ACTIVE.name().equals(employee.getStatus());
+        return employee.getEmployeeStatus() == EmployeeStatus.ACTIVE;
     }
 
-    private void validateStatus(String status) {
-        if (!isValidStatus(status)) {
-            throw new IllegalArgumentException("Invalid status: " + status);
+    // 야간 일괄 상태 전환: 한 번 훑으면서 적용과 감사 기록을 함께 처리하고, 이미 같은 상태인 직원은 건너뛴다
+    public int applyStatusTransitions(StatusTransitionBatch batch) {
+        int applied = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Employee employee = batch.employeeAt(i);
+            EmployeeStatus target = batch.targetAt(i);
+            if (employee.getEmployeeStatus() == target) {
+                continue;
+            }
+            setEmployeeStatus(employee, target);
+            applied++;
         }
+        return applied;
     }
 
-    private boolean isValidStatus(String status) {
-        return Arrays.stream(EmployeeStatus.values())
-                .anyMatch(validStatus -> validStatus.name().equals(status));
+    private EmployeeStatus validateStatus(String status) {
+        EmployeeStatus validStatus = EmployeeStatus.fromName(status);
+        if (validStatus == null) {
+            throw new IllegalArgumentException("Invalid status: " + status);
+        }
+        return validStatus;
     }
 
     // 사용 예시
@@ -500,18 +679,27 @@ public class Functions {
         String body = buildEmailBody(employee, template);
 
         emailService.send(employee.getEmail(), subject, body);
-        auditService.logActivity(employee.getEmail(), "EMAIL_SENT: " + subject);
+        auditService.logActivity(employee.getEmail(), template.getSentActivity());
+    }
+
+    // 전 직원 대상 공지: 검증 → 본문 생성 → 발송 → 감사 기록을 단계별 스레드가 동시에 처리한다
+    public BulkEmailStatistics sendBulkEmail(Iterable<Employee> recipients, EmailTemplate template)
+            throws InterruptedException {
+        return BulkEmailSender.withDefaults(emailService, auditService).send(recipients, template);
     }
 
     private void validateEmail(String email) {
-        if (email == null || email.trim().isEmpty() || !email.contains("@")) {
+        if (!isDeliverableEmail(email)) {
             throw new IllegalArgumentException("Invalid email address: " + email);
         }
     }
 
+    static boolean isDeliverableEmail(String email) {
+        return email != null && !email.trim().isEmpty() && email.contains("@");
+    }
+
     private String buildEmailBody(Employee employee, EmailTemplate template) {
-        return String.format("Dear %s,\n%s\nBest regards,\nHR Team",
-                employee.getName(), template.getContent());
+        return template.render(employee.getName());
     }
 
     // Helper 메서드들
@@ -533,12 +721,19 @@ public class Functions {
         WELCOME("Welcome to Company", "Welcome to our company!"),
         GOODBYE("Thank you for your service", "Thank you for your service at our company!");
 
+        private static final String GREETING = "Dear ";
+
         private final String subject;
         private final String content;
+        // 수신자 이름 뒤에 붙는 고정 부분과 감사 기록 문구는 템플릿마다 한 번만 만든다
+        private final String bodyAfterName;
+        private final String sentActivity;
 
         EmailTemplate(String subject, String content) {
             this.subject = subject;
             this.content = content;
+            this.bodyAfterName = ",\n" + content + "\nBest regards,\nHR Team";
+            this.sentActivity = "EMAIL_SENT: " + subject;
         }
 
         public String getSubject() {
@@ -548,10 +743,87 @@ public class Functions {
         public String getContent() {
             return content;
         }
+
+        public String render(String recipientName) {
+            String name = String.valueOf(recipientName);
+            return new StringBuilder(GREETING.length() + name.length() + bodyAfterName.length())
+                    .append(GREETING).append(name).append(bodyAfterName)
+                    .toString();
+        }
+
+        public String getSentActivity() {
+            return sentActivity;
+        }
     }
 
     enum EmployeeStatus {
-        ACTIVE, INACTIVE, TERMINATED, ON_LEAVE
+        ACTIVE, INACTIVE, TERMINATED, ON_LEAVE;
+
+        // values()는 호출마다 배열을 복제하므로 한 번만 만들어 둔다
+        private static final EmployeeStatus[] BY_CODE = values();
+        private static final Map<String, EmployeeStatus> BY_NAME = new HashMap<>();
+
+        static {
+            for (EmployeeStatus status : BY_CODE) {
+                BY_NAME.put(status.name(), status);
+            }
+        }
+
+        private final String statusChangedActivity = "STATUS_CHANGED_TO_" + name();
+
+        /** 이름에 해당하는 상태, 없으면 null */
+        public static EmployeeStatus fromName(String name) {
+            return name == null ? null : BY_NAME.get(name);
+        }
+
+        public static EmployeeStatus fromCode(byte code) {
+            return BY_CODE[code];
+        }
+
+        public byte code() {
+            return (byte) ordinal();
+        }
+
+        public String getStatusChangedActivity() {
+            return statusChangedActivity;
+        }
+    }
+
+    // 일괄 상태 전환 목록. 직원과 목표 상태를 나란히 배열에 담아 전환마다 객체를 만들지 않는다.
+    static class StatusTransitionBatch {
+        private Employee[] employees;
+        private byte[] targetCodes;
+        private int size;
+
+        StatusTransitionBatch(int expectedSize) {
+            this.employees = new Employee[Math.max(1, expectedSize)];
+            this.targetCodes = new byte[Math.max(1, expectedSize)];
+        }
+
+        StatusTransitionBatch add(Employee employee, EmployeeStatus target) {
+            Objects.requireNonNull(employee, "employee");
+            Objects.requireNonNull(target, "target");
+            if (size == employees.length) {
+                employees = Arrays.copyOf(employees, size * 2);
+                targetCodes = Arrays.copyOf(targetCodes, size * 2);
+            }
+            employees[size] = employee;
+            targetCodes[size] = target.code();
+            size++;
+            return this;
+        }
+
+        int size() {
+            return size;
+        }
+
+        Employee employeeAt(int index) {
+            return employees[index];
+        }
+
+        EmployeeStatus targetAt(int index) {
+            return EmployeeStatus.fromCode(targetCodes[index]);
+        }
     }
 
     // ========== 예외 클래스들 ==========
@@ -568,12 +840,58 @@ public class Functions {
         }
     }
 
+    // 묶음 발송이 중간에 실패함. 앞의 sentCount건은 이미 발송되었다.
+    static class PartialBatchSendException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int sentCount;
+
+        public PartialBatchSendException(int sentCount, RuntimeException cause) {
+            super("batch send failed after " + sentCount + " messages", cause);
+            this.sentCount = sentCount;
+        }
+
+        public int getSentCount() {
+            return sentCount;
+        }
+    }
+
+    static class LoginThrottledException extends AuthenticationException {
+        private static final long serialVersionUID = 1L;
+
+        private final long retryAfterMillis;
+
+        public LoginThrottledException(String message, long retryAfterMillis) {
+            super(message);
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+
     // ========== 인터페이스들 ==========
 
     interface BenefitsCalculator {
         double calculate(double salary);
     }
 
+    // 급여에 고정 비율을 곱하는 계산기. 비율을 알면 여러 급여를 한 루프에서 계산할 수 있다.
+    interface RateBasedBenefitsCalculator extends BenefitsCalculator {
+        double rate();
+
+        @Override
+        default double calculate(double salary) {
+            return salary * rate();
+        }
+    }
+
+    // 급여 계산 결과를 받는 곳 (콘솔, 파일, 메시지 큐 등)
+    interface PayrollSink {
+        void accept(Employee employee, double netSalary);
+    }
+
     interface EmployeeRepository {
         Employee findById(String id);
 
@@ -584,8 +902,38 @@ public class Functions {
         List<Employee> findAll();
     }
 
+    // 급여 범위 조회. 구현체는 정렬된 인덱스로 O(log n + k)에 답해야 한다.
+    interface SalaryRangeQueries {
+        List<Employee> findBySalaryAbove(double exclusiveMinimum);
+
+        List<Employee> findBySalaryBetween(double inclusiveMinimum, double inclusiveMaximum);
+
+        List<Employee> findTopEarners(int count);
+    }
+
+    // Employee.setSalary 시점에 인덱스를 갱신하기 위한 통지
+    interface SalaryChangeListener {
+        void salaryChanged(Employee employee, double previousSalary);
+    }
+
     interface EmailService {
         void send(String to, String subject, String body);
+
+        /**
+         * 묶음을 보낸다. 연결을 재사용할 수 있는 구현체는 묶음 전체를 한 연결로 보내도록 재정의한다.
+         * 중간에 실패하면 앞에서부터 몇 건을 보냈는지 PartialBatchSendException으로 알려야 하고,
+         * 그럴 수 없는 구현체는 전부 보내거나 하나도 보내지 않아야 한다(호출자가 보내지 않은 것만 다시 보내도록).
+         */
+        default void sendBatch(List<EmailMessage> messages) {
+            for (int i = 0; i < messages.size(); i++) {
+                EmailMessage message = messages.get(i);
+                try {
+                    send(message.getTo(), message.getSubject(), message.getBody());
+                } catch (RuntimeException e) {
+                    throw new PartialBatchSendException(i, e);
+                }
+            }
+        }
     }
 
     interface AuditService {
@@ -602,17 +950,17 @@ public class Functions {
 
     // ========== 구현 클래스들 ==========
 
-    static class FullTimeBenefitsCalculator implements BenefitsCalculator {
+    static class FullTimeBenefitsCalculator implements RateBasedBenefitsCalculator {
         @Override
-        public double calculate(double salary) {
-            return salary * 0.2;
+        public double rate() {
+            return 0.2;
         }
     }
 
-    static class PartTimeBenefitsCalculator implements BenefitsCalculator {
+    static class PartTimeBenefitsCalculator implements RateBasedBenefitsCalculator {
         @Override
-        public double calculate(double salary) {
-            return salary * 0.1;
+        public double rate() {
+            return 0.1;
         }
     }
 
@@ -623,172 +971,2898 @@ public class Functions {
         }
     }
 
-    static class InternBenefitsCalculator implements BenefitsCalculator {
+    static class InternBenefitsCalculator implements RateBasedBenefitsCalculator {
         @Override
-        public double calculate(double salary) {
-            return salary * 0.05;
+        public double rate() {
+            return 0.05;
+        }
+    }
+
+    /**
+     * 복리후생비 일괄 계산기 (열 지향).
+     *
+     * 직원마다 getBenefitsCalculator().calculate()를 부르면 구현체가 4가지라 호출 지점이 메가모픽이 되어
+     * 인라이닝이 막힌다. 대신 같은 비율을 쓰는 직원끼리 묶어 급여를 double[] 열에 모아 두고,
+     * 비율 곱셈만 하는 단순 루프를 돌린다. 이 루프는 JIT가 SIMD로 자동 벡터화할 수 있다.
+     *
+     * 열을 만드는 비용(직원 객체를 한 번 훑는 비용)은 건별 계산과 비슷하므로,
+     * 연간 재계산처럼 같은 직원 집합을 여러 번 계산할 때는 of()로 만든 열을 재사용해야 이득이 크다.
+     *
+     * 결과는 건별 계산과 비트 단위까지 같다: 같은 식(salary * rate)을 그대로 계산하기 때문.
+     * ContractBenefitsCalculator(항상 0)와 비율을 알 수 없는 사용자 정의 계산기는 건별 호출로 처리한다.
+     */
+    static class BatchBenefitsCalculator {
+        private final int employeeCount;
+        private final double[] rates;
+        private final int[][] positionsByRate;
+        private final double[][] salariesByRate;
+        private final double[] scratch;
+        private final int[] fallbackPositions;
+        private final double[] fallbackSalaries;
+        private final BenefitsCalculator[] fallbackCalculators;
+
+        private BatchBenefitsCalculator(int employeeCount, double[] rates, int[][] positionsByRate,
+                                        double[][] salariesByRate, int[] fallbackPositions,
+                                        double[] fallbackSalaries, BenefitsCalculator[] fallbackCalculators) {
+            this.employeeCount = employeeCount;
+            this.rates = rates;
+            this.positionsByRate = positionsByRate;
+            this.salariesByRate = salariesByRate;
+            this.fallbackPositions = fallbackPositions;
+            this.fallbackSalaries = fallbackSalaries;
+            this.fallbackCalculators = fallbackCalculators;
+
+            int largestColumn = 0;
+            for (double[] salaries : salariesByRate) {
+                largestColumn = Math.max(largestColumn, salaries.length);
+            }
+            this.scratch = new double[largestColumn];
         }
-    }
 
-    // 간단한 구현체들 (실제 프로젝트에서는 더 복잡한 구현 필요)
-    static class InMemoryEmployeeRepository implements EmployeeRepository {
-        private final Map<String, Employee> employees = new HashMap<>();
+        static double[] calculate(List<Employee> employees) {
+            return of(employees).calculate();
+        }
 
-        @Override
-        public Employee findById(String id) {
-            return employees.get(id);
+        /** 직원 목록을 비율별 열로 재배치한다. 결과 배열의 순서는 입력 목록의 순서와 같다. */
+        static BatchBenefitsCalculator of(List<Employee> employees) {
+            ColumnBuilder builder = new ColumnBuilder(employees.size());
+            for (int i = 0; i < employees.size(); i++) {
+                Employee employee = employees.get(i);
+                builder.add(i, employee.getSalary(), employee.getBenefitsCalculator());
+            }
+            return builder.build();
         }
 
-        @Override
-        public void save(Employee employee) {
-            employees.put(employee.getId(), employee);
+        double[] calculate() {
+            double[] benefits = new double[employeeCount];
+            calculateInto(benefits);
+            return benefits;
         }
 
-        @Override
-        public void delete(Employee employee) {
-            employees.remove(employee.getId());
+        /** 미리 할당한 배열에 결과를 쓴다. 한 인스턴스를 여러 스레드가 동시에 쓰면 안 된다(scratch 공유). */
+        void calculateInto(double[] benefits) {
+            if (benefits.length < employeeCount) {
+                throw new IllegalArgumentException("output too small: " + benefits.length + " < " + employeeCount);
+            }
+
+            for (int column = 0; column < rates.length; column++) {
+                double rate = rates[column];
+                double[] salaries = salariesByRate[column];
+                int[] positions = positionsByRate[column];
+
+                // 분기도 간접 참조도 없는 루프 → 자동 벡터화 대상
+                for (int i = 0; i < salaries.length; i++) {
+                    scratch[i] = salaries[i] * rate;
+                }
+                for (int i = 0; i < positions.length; i++) {
+                    benefits[positions[i]] = scratch[i];
+                }
+            }
+
+            for (int i = 0; i < fallbackPositions.length; i++) {
+                benefits[fallbackPositions[i]] = fallbackCalculators[i].calculate(fallbackSalaries[i]);
+            }
         }
 
-        @Override
-        public List<Employee> findAll() {
-            return new ArrayList<>(employees.values());
+        private static final class ColumnBuilder {
+            private final DoubleColumn rates = new DoubleColumn(4);
+            private final List<IntColumn> positions = new ArrayList<>();
+            private final List<DoubleColumn> salaries = new ArrayList<>();
+            private final IntColumn fallbackPositions = new IntColumn(16);
+            private final DoubleColumn fallbackSalaries = new DoubleColumn(16);
+            private final List<BenefitsCalculator> fallbackCalculators = new ArrayList<>();
+            private final int expectedSize;
+            private double lastRate = Double.NaN;
+            private int lastColumn = -1;
+
+            private ColumnBuilder(int expectedSize) {
+                this.expectedSize = expectedSize;
+            }
+
+            private void add(int position, double salary, BenefitsCalculator calculator) {
+                if (!(calculator instanceof RateBasedBenefitsCalculator)) {
+                    fallbackPositions.add(position);
+                    fallbackSalaries.add(salary);
+                    fallbackCalculators.add(Objects.requireNonNull(calculator, "benefitsCalculator"));
+                    return;
+                }
+
+                int column = columnFor(((RateBasedBenefitsCalculator) calculator).rate());
+                positions.get(column).add(position);
+                salaries.get(column).add(salary);
+            }
+
+            // 비율 종류는 몇 개뿐이라 맵 대신 직전 값 비교 + 선형 탐색 (Double 박싱도 피함)
+            private int columnFor(double rate) {
+                if (Double.compare(rate, lastRate) == 0) {
+                    return lastColumn;
+                }
+                int column = 0;
+                while (column < rates.size && Double.compare(rates.values[column], rate) != 0) {
+                    column++;
+                }
+                if (column == rates.size) {
+                    rates.add(rate);
+                    positions.add(new IntColumn(expectedSize / 4 + 1));
+                    salaries.add(new DoubleColumn(expectedSize / 4 + 1));
+                }
+                lastRate = rate;
+                lastColumn = column;
+                return column;
+            }
+
+            private BatchBenefitsCalculator build() {
+                int columnCount = rates.size;
+                double[] rateArray = rates.toArray();
+                int[][] positionArrays = new int[columnCount][];
+                double[][] salaryArrays = new double[columnCount][];
+                for (int c = 0; c < columnCount; c++) {
+                    positionArrays[c] = positions.get(c).toArray();
+                    salaryArrays[c] = salaries.get(c).toArray();
+                }
+                return new BatchBenefitsCalculator(expectedSize, rateArray, positionArrays, salaryArrays,
+                        fallbackPositions.toArray(), fallbackSalaries.toArray(),
+                        fallbackCalculators.toArray(new BenefitsCalculator[0]));
+            }
         }
-    }
 
-    static class SimpleEmailService implements EmailService {
-        @Override
-        public void send(String to, String subject, String body) {
-            System.out.println("Email sent to: " + to + " | Subject: " + subject);
+        private static final class IntColumn {
+            private int[] values;
+            private int size;
+
+            private IntColumn(int initialCapacity) {
+                this.values = new int[Math.max(1, initialCapacity)];
+            }
+
+            private void add(int value) {
+                if (size == values.length) values = Arrays.copyOf(values, size * 2);
+                values[size++] = value;
+            }
+
+            private int[] toArray() {
+                return Arrays.copyOf(values, size);
+            }
         }
-    }
 
-    static class SimpleAuditService implements AuditService {
-        private final List<String> auditLog = new ArrayList<>();
+        private static final class DoubleColumn {
+            private double[] values;
+            private int size;
 
-        @Override
-        public void logActivity(String user, String activity) {
-            String logEntry = String.format("[%s] %s: %s",
-                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
-                    user, activity);
-            auditLog.add(logEntry);
-            System.out.println("AUDIT: " + logEntry);
+            private DoubleColumn(int initialCapacity) {
+                this.values = new double[Math.max(1, initialCapacity)];
+            }
+
+            private void add(double value) {
+                if (size == values.length) values = Arrays.copyOf(values, size * 2);
+                values[size++] = value;
+            }
+
+            private double[] toArray() {
+                return Arrays.copyOf(values, size);
+            }
         }
     }
 
-    static class SimpleSessionManager implements SessionManager {
-        private final Set<String> activeSessions = new HashSet<>();
-
+    static class ConsolePayrollSink implements PayrollSink {
         @Override
-        public void createSession(String userName) {
-            activeSessions.add(userName);
+        public synchronized void accept(Employee employee, double netSalary) {
+            System.out.println("Employee: " + employee.getName());
+            System.out.println("Net Salary: " + String.format("%.2f", netSalary));
         }
+    }
+
+    // 병렬 급여 처리의 단계별 카운터와 실패 목록
+    static class PayrollRunStatistics {
+        private final LongAdder validated = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder processed = new LongAdder();
+        private final Queue<FailedPayroll> deadLetters = new ConcurrentLinkedQueue<>();
+
+        public long getValidatedCount() { return validated.sum(); }
+        public long getRejectedCount() { return rejected.sum(); }
+        public long getFailedCount() { return failed.sum(); }
+        public long getProcessedCount() { return processed.sum(); }
+        public List<FailedPayroll> getDeadLetters() { return new ArrayList<>(deadLetters); }
 
         @Override
-        public void invalidateSession(String userName) {
-            activeSessions.remove(userName);
+        public String toString() {
+            return "PayrollRunStatistics{" +
+                    "validated=" + getValidatedCount() +
+                    ", rejected=" + getRejectedCount() +
+                    ", failed=" + getFailedCount() +
+                    ", processed=" + getProcessedCount() +
+                    '}';
         }
+    }
 
-        @Override
-        public boolean isSessionValid(String userName) {
-            return activeSessions.contains(userName);
+    static class FailedPayroll {
+        private final Employee employee;
+        private final Exception cause;
+
+        FailedPayroll(Employee employee, Exception cause) {
+            this.employee = employee;
+            this.cause = cause;
         }
+
+        public Employee getEmployee() { return employee; }
+        public Exception getCause() { return cause; }
     }
 
-    // ========== Employee 클래스 ==========
+    /**
+     * 대용량 직원 보고서 출력기. 재사용하는 버퍼 하나에 내용을 쌓고, 가득 차면 대상에 한 번에 내보낸다.
+     * 이름 정리(trim + 첫 글자 대문자 + 나머지 소문자)는 중간 문자열 없이 버퍼에 바로 쓴다.
+     *
+     * 스레드 안전하지 않다. 보고서 하나당 하나씩 만들어 쓴다.
+     */
+    static final class EmployeeReportWriter implements Flushable {
+        static final DateTimeFormatter GENERATED_AT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        static final int DEFAULT_BUFFER_CHARS = 64 * 1024;
 
-    static class Employee {
-        private String id;
-        private String name;
-        private int age;
-        private String department;
-        private double salary;
-        private String email;
-        private String phone;
-        private String address;
-        private LocalDateTime hireDate;
-        private int performanceRating;
-        private String employeeType;
-        private String status;
-        private int yearsOfExperience;
-        private BenefitsCalculator benefitsCalculator;
+        private static final String UNKNOWN_NAME = "Unknown";
+        private static final String LINE_SEPARATOR = System.lineSeparator();
 
-        // 생성자
-        public Employee(String id, String name, int age, String department, double salary,
-                        String employeeType, BenefitsCalculator benefitsCalculator) {
-            this.id = id;
-            this.name = name;
-            this.age = age;
-            this.department = department;
-            this.salary = salary;
-            this.employeeType = employeeType;
-            this.benefitsCalculator = benefitsCalculator;
-            this.status = EmployeeStatus.INACTIVE.name();
-            this.hireDate = LocalDateTime.now();
-        }
+        private final Appendable out;
+        private final WritableByteChannel channel;
+        private final StringBuilder buffer;
+        private final int flushThreshold;
+        // 채널 출력용 인코더와 바이트 버퍼도 한 번만 만든다
+        private final CharsetEncoder encoder;
+        private final ByteBuffer encoded;
+        private char[] encodingChars = new char[0];
+        // tr/az/lt 로케일은 ASCII 대소문자 변환도 달라지므로 String 메서드와 같은 결과를 내는 느린 경로를 쓴다
+        private final boolean asciiCaseMappingIsStandard;
 
-        // Getters and Setters
-        public String getId() {
-            return id;
+        private EmployeeReportWriter(Appendable out, WritableByteChannel channel, int bufferChars) {
+            if (bufferChars <= 0) {
+                throw new IllegalArgumentException("bufferChars must be > 0: " + bufferChars);
+            }
+            this.out = out;
+            this.channel = channel;
+            this.buffer = new StringBuilder(bufferChars + 256);
+            this.flushThreshold = bufferChars;
+            // 짝이 맞지 않는 서로게이트는 String.getBytes와 같이 '?'로 바꾼다
+            this.encoder = channel == null ? null : StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.encoded = channel == null ? null : ByteBuffer.allocate(bufferChars * 3);
+            this.asciiCaseMappingIsStandard = "I".toLowerCase().equals("i") && "i".toUpperCase().equals("I");
         }
 
-        public void setId(String id) {
-            this.id = id;
+        static EmployeeReportWriter to(Appendable out) {
+            return new EmployeeReportWriter(Objects.requireNonNull(out, "out"), null, DEFAULT_BUFFER_CHARS);
         }
 
-        public String getName() {
-            return name;
+        static EmployeeReportWriter to(Appendable out, int bufferChars) {
+            return new EmployeeReportWriter(Objects.requireNonNull(out, "out"), null, bufferChars);
         }
 
-        public void setName(String name) {
-            this.name = name;
+        /** UTF-8로 인코딩해 채널에 쓴다. 채널은 닫지 않는다. */
+        static EmployeeReportWriter to(WritableByteChannel channel, int bufferChars) {
+            return new EmployeeReportWriter(null, Objects.requireNonNull(channel, "channel"), bufferChars);
         }
 
-        public int getAge() {
-            return age;
+        public void writeReport(Iterable<Employee> employees, LocalDateTime generatedAt) throws IOException {
+            writeHeader(generatedAt);
+            writeEmployees(employees);
+            writeFooter();
+            flush();
         }
 
-        public void setAge(int age) {
-            this.age = age;
+        public void writeHeader(LocalDateTime generatedAt) throws IOException {
+            buffer.append("=== Employee Report ===").append(LINE_SEPARATOR);
+            buffer.append("Generated: ");
+            GENERATED_AT_FORMAT.formatTo(generatedAt, buffer);
+            buffer.append(LINE_SEPARATOR);
+            flushIfFull();
         }
 
-        public String getDepartment() {
-            return department;
+        public void writeEmployees(Iterable<Employee> employees) throws IOException {
+            for (Employee employee : employees) {
+                if (employee != null) {
+                    writeEmployee(employee);
+                }
+            }
         }
 
-        public void setDepartment(String department) {
-            this.department = department;
+        public void writeEmployee(Employee employee) throws IOException {
+            buffer.append("Name: ");
+            appendFormattedName(employee.getName());
+            buffer.append(LINE_SEPARATOR);
+            buffer.append("Department: ").append(employee.getDepartment()).append(LINE_SEPARATOR);
+            flushIfFull();
         }
 
-        public double getSalary() {
-            return salary;
+        public void writeFooter() throws IOException {
+            buffer.append("=== End of Report ===").append(LINE_SEPARATOR);
+            flushIfFull();
         }
 
-        public void setSalary(double salary) {
-            this.salary = salary;
+        @Override
+        public void flush() throws IOException {
+            if (buffer.length() > 0) {
+                if (channel != null) {
+                    writeToChannel();
+                } else {
+                    out.append(buffer);
+                }
+                buffer.setLength(0);
+            }
+            if (out instanceof Flushable) {
+                ((Flushable) out).flush();
+            }
         }
 
-        public String getEmail() {
-            return email;
+        private void flushIfFull() throws IOException {
+            if (buffer.length() >= flushThreshold) {
+                flush();
+            }
         }
 
-        public void setEmail(String email) {
-            this.email = email;
+        // name.trim() 후 첫 글자만 대문자, 나머지는 소문자. 비어 있으면 "Unknown"
+        private void appendFormattedName(String name) {
+            if (name == null) {
+                buffer.append(UNKNOWN_NAME);
+                return;
+            }
+            int start = 0;
+            int end = name.length();
+            while (start < end && name.charAt(start) <= ' ') start++;
+            while (end > start && name.charAt(end - 1) <= ' ') end--;
+            if (start == end) {
+                buffer.append(UNKNOWN_NAME);
+                return;
+            }
+            if (!asciiCaseMappingIsStandard || !isAscii(name, start, end)) {
+                // 'ß' → "SS"처럼 길이가 바뀌는 변환은 String 메서드에 맡긴다
+                String trimmed = name.substring(start, end);
+                buffer.append(trimmed.substring(0, 1).toUpperCase()).append(trimmed.substring(1).toLowerCase());
+                return;
+            }
+            buffer.append(toAsciiUpperCase(name.charAt(start)));
+            for (int i = start + 1; i < end; i++) {
+                buffer.append(toAsciiLowerCase(name.charAt(i)));
+            }
         }
 
-        public String getPhone() {
-            return phone;
+        private static boolean isAscii(String text, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (text.charAt(i) >= 0x80) {
+                    return false;
+                }
+            }
+            return true;
         }
 
-        public void setPhone(String phone) {
-            this.phone = phone;
+        private static char toAsciiUpperCase(char c) {
+            return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
         }
 
-        public String getAddress() {
-            return address;
+        private static char toAsciiLowerCase(char c) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
         }
 
-        public void setAddress(String address) {
-            this.address = address;
+        private void writeToChannel() throws IOException {
+            // StringBuilder를 바로 감싸면 문자 단위로 읽어 느리므로, 배열로 복사해 인코더의 빠른 경로를 탄다
+            if (encodingChars.length < buffer.length()) {
+                encodingChars = new char[buffer.length()];
+            }
+            buffer.getChars(0, buffer.length(), encodingChars, 0);
+            CharBuffer chars = CharBuffer.wrap(encodingChars, 0, buffer.length());
+            encoder.reset();
+            while (encoder.encode(chars, encoded, true).isOverflow()) {
+                drainEncoded();
+            }
+            while (encoder.flush(encoded).isOverflow()) {
+                drainEncoded();
+            }
+            drainEncoded();
+        }
+
+        private void drainEncoded() throws IOException {
+            encoded.flip();
+            while (encoded.hasRemaining()) {
+                channel.write(encoded);
+            }
+            encoded.clear();
+        }
+    }
+
+    // 간단한 구현체들 (실제 프로젝트에서는 더 복잡한 구현 필요)
+    static class InMemoryEmployeeRepository implements EmployeeRepository {
+        private final Map<String, Employee> employees = new HashMap<>();
+
+        @Override
+        public Employee findById(String id) {
+            return employees.get(id);
+        }
+
+        @Override
+        public void save(Employee employee) {
+            employees.put(employee.getId(), employee);
+        }
+
+        @Override
+        public void delete(Employee employee) {
+            employees.remove(employee.getId());
+        }
+
+        @Override
+        public List<Employee> findAll() {
+            return new ArrayList<>(employees.values());
+        }
+    }
+
+    /**
+     * 동시성 저장소. 직원 맵을 영속(persistent) 자료구조로 두고 AtomicReference로 교체한다.
+     *
+     * - 쓰기는 바뀐 경로의 노드만 새로 만들고 나머지는 이전 버전과 공유하므로 O(log n)이다.
+     *   여러 스레드가 동시에 쓰면 CAS가 실패한 쪽만 다시 시도한다.
+     * - findAll은 현재 버전의 참조를 감싸 반환할 뿐이라 O(1)이고 복사도 락도 없다.
+     *   반환된 목록은 그 시점의 스냅샷이며 이후의 save/delete에 영향을 받지 않는다.
+     *   (Employee 객체 자체는 가변이므로 필드 변경까지 격리되지는 않는다.)
+     */
+    static class ConcurrentEmployeeRepository
+            implements EmployeeRepository, SalaryRangeQueries, SalaryChangeListener {
+        private final AtomicReference<PersistentEmployeeMap> employees =
+                new AtomicReference<>(PersistentEmployeeMap.EMPTY);
+
+        // (급여, ID) 순으로 정렬된 스킵 리스트. 같은 급여의 직원도 ID로 구분된다.
+        // 맵 교체와 인덱스 갱신은 별개의 원자 연산이므로, 같은 ID에 대한 쓰기는 ID별 락으로 줄 세운다.
+        // → 쓰기가 끝난 뒤에는 맵과 인덱스가 항상 일치한다. (쓰는 도중의 조회는 둘 중 한쪽만 반영된 상태를 볼 수 있다.)
+        // 인덱스에서 지울 때는 실제로 넣었던 키(indexedSalaryKeys)를 쓴다. 리스너가 알려 준 이전 급여는
+        // 락을 잡기 전에 읽은 값이라 그 사이 다른 변경과 엇갈릴 수 있으므로, 락 안에서 급여를 다시 읽어 키를 만든다.
+        private final ConcurrentNavigableMap<SalaryKey, Employee> salaryIndex = new ConcurrentSkipListMap<>();
+        private final Map<String, SalaryKey> indexedSalaryKeys = new ConcurrentHashMap<>();
+        private final Object[] idLocks = newLockStripes(64);
+
+        @Override
+        public Employee findById(String id) {
+            return employees.get().get(id);
+        }
+
+        @Override
+        public void save(Employee employee) {
+            synchronized (lockFor(employee.getId())) {
+                // 리스너를 먼저 달아야 이후의 급여 변경이 모두 salaryChanged로 들어온다 (락이 풀린 뒤 다시 색인)
+                employee.setSalaryChangeListener(this);
+                PersistentEmployeeMap previous = employees.getAndUpdate(current -> current.put(employee.getId(), employee));
+                Employee replaced = previous.get(employee.getId());
+                if (replaced != null && replaced != employee) {
+                    unindex(replaced);
+                }
+                reindex(employee);
+            }
+        }
+
+        @Override
+        public void delete(Employee employee) {
+            synchronized (lockFor(employee.getId())) {
+                PersistentEmployeeMap previous = employees.getAndUpdate(current -> current.remove(employee.getId()));
+                Employee removed = previous.get(employee.getId());
+                if (removed != null) {
+                    unindex(removed);
+                }
+            }
+        }
+
+        @Override
+        public void salaryChanged(Employee employee, double previousSalary) {
+            synchronized (lockFor(employee.getId())) {
+                if (employees.get().get(employee.getId()) == employee) {
+                    reindex(employee);
+                }
+            }
+        }
+
+        @Override
+        public List<Employee> findBySalaryAbove(double exclusiveMinimum) {
+            // 같은 급여 중 가장 큰 키 다음부터 = 급여가 exclusiveMinimum보다 큰 첫 직원
+            return new ArrayList<>(salaryIndex.tailMap(SalaryKey.upperBoundOf(exclusiveMinimum), false).values());
+        }
+
+        @Override
+        public List<Employee> findBySalaryBetween(double inclusiveMinimum, double inclusiveMaximum) {
+            if (inclusiveMinimum > inclusiveMaximum) {
+                return new ArrayList<>();
+            }
+            return new ArrayList<>(salaryIndex.subMap(
+                    SalaryKey.lowerBoundOf(inclusiveMinimum), true,
+                    SalaryKey.upperBoundOf(inclusiveMaximum), true).values());
+        }
+
+        @Override
+        public List<Employee> findTopEarners(int count) {
+            List<Employee> topEarners = new ArrayList<>(Math.max(0, count));
+            for (Employee employee : salaryIndex.descendingMap().values()) {
+                if (topEarners.size() >= count) break;
+                topEarners.add(employee);
+            }
+            return topEarners;
+        }
+
+        // 아래 두 메서드는 employee ID의 락을 잡은 채로만 부른다
+        private void reindex(Employee employee) {
+            SalaryKey indexedKey = indexedSalaryKeys.get(employee.getId());
+            if (indexedKey != null) {
+                salaryIndex.remove(indexedKey);
+            }
+            SalaryKey key = new SalaryKey(employee.getSalary(), employee.getId());
+            salaryIndex.put(key, employee);
+            indexedSalaryKeys.put(employee.getId(), key);
+        }
+
+        private void unindex(Employee employee) {
+            employee.setSalaryChangeListener(null);
+            SalaryKey indexedKey = indexedSalaryKeys.remove(employee.getId());
+            if (indexedKey != null) {
+                salaryIndex.remove(indexedKey, employee);
+            }
+        }
+
+        // 서로 다른 ID의 쓰기는 대부분 다른 락을 잡으므로 전역 락처럼 줄 서지 않는다
+        private Object lockFor(String id) {
+            int hash = id.hashCode();
+            return idLocks[(hash ^ (hash >>> 16)) & (idLocks.length - 1)];
+        }
+
+        private static Object[] newLockStripes(int count) {
+            Object[] locks = new Object[count];
+            for (int i = 0; i < count; i++) {
+                locks[i] = new Object();
+            }
+            return locks;
+        }
+
+        @Override
+        public List<Employee> findAll() {
+            return new EmployeeSnapshot(employees.get());
+        }
+
+        public PersistentEmployeeMap snapshot() {
+            return employees.get();
+        }
+    }
+
+    /**
+     * 원리금 균등 상환 일괄 계산 엔진.
+     *
+     * 월 상환액 = 원금 × (r × (1+r)^n) / ((1+r)^n − 1) 에서 원금을 뺀 나머지(연금 계수)는 (이율, 기간)만의 함수다.
+     * 대출 상품의 이율/기간 조합은 많지 않으므로 계수를 캐시해 두고, 원금 배열에는 곱셈/나눗셈만 적용한다.
+     * 계수는 calculateMonthlyPayment와 같은 순서로 계산하므로 결과가 건별 계산과 비트 단위까지 같다.
+     */
+    static class AmortizationEngine {
+        private static final int DEFAULT_CACHE_CAPACITY = 4_096;
+        private static final AmortizationEngine SHARED = new AmortizationEngine(DEFAULT_CACHE_CAPACITY);
+
+        private final int cacheCapacity;
+        private final Map<FactorKey, AnnuityFactor> factorCache = new ConcurrentHashMap<>();
+
+        AmortizationEngine(int cacheCapacity) {
+            if (cacheCapacity <= 0) {
+                throw new IllegalArgumentException("cacheCapacity must be > 0: " + cacheCapacity);
+            }
+            this.cacheCapacity = cacheCapacity;
+        }
+
+        static AmortizationEngine shared() {
+            return SHARED;
+        }
+
+        double[] calculateMonthlyPayments(double[] principals, double[] rates, int[] months) {
+            double[] payments = new double[principals.length];
+            calculateMonthlyPaymentsInto(principals, rates, months, payments);
+            return payments;
+        }
+
+        void calculateMonthlyPaymentsInto(double[] principals, double[] rates, int[] months, double[] payments) {
+            requireSameLength(principals.length, rates.length, months.length, payments.length);
+
+            AnnuityFactor factor = null;
+            for (int i = 0; i < principals.length; i++) {
+                validateLoanParameters(principals[i], rates[i], months[i]);
+                // 같은 조합이 연속되는 경우가 많으므로 직전 계수부터 확인
+                if (factor == null || !factor.matches(rates[i], months[i])) {
+                    factor = factorFor(rates[i], months[i]);
+                }
+                payments[i] = principals[i] * factor.numerator / factor.denominator;
+            }
+        }
+
+        /**
+         * 상환 스케줄을 미리 할당한 버퍼에 쓴다. 회차 i의 값은 각 배열의 offset + i 위치에 기록된다.
+         * 마지막 회차는 반올림 오차가 쌓이지 않도록 남은 잔액 전부를 원금으로 상환한다.
+         *
+         * @return 기록한 회차 수 (= months)
+         */
+        int writeSchedule(double principal, double rate, int months,
+                          double[] interestPaid, double[] principalPaid, double[] remainingBalance, int offset) {
+            validateLoanParameters(principal, rate, months);
+            if (offset < 0 || offset + months > interestPaid.length
+                    || offset + months > principalPaid.length || offset + months > remainingBalance.length) {
+                throw new IllegalArgumentException("schedule buffers too small for " + months + " months at " + offset);
+            }
+
+            AnnuityFactor factor = factorFor(rate, months);
+            double payment = principal * factor.numerator / factor.denominator;
+            double balance = principal;
+
+            for (int period = 0; period < months; period++) {
+                double interest = balance * rate;
+                double principalPart = period == months - 1 ? balance : payment - interest;
+                balance -= principalPart;
+
+                interestPaid[offset + period] = interest;
+                principalPaid[offset + period] = principalPart;
+                remainingBalance[offset + period] = balance;
+            }
+            return months;
+        }
+
+        /**
+         * 여러 대출의 스케줄을 하나의 평평한 버퍼에 이어서 쓴다.
+         * scheduleOffsets는 scheduleOffsetsOf(months)의 결과(대출 수 + 1개)이며,
+         * 대출 k의 스케줄은 scheduleOffsets[k]부터 months[k]개 회차를 차지한다.
+         */
+        void writeSchedules(double[] principals, double[] rates, int[] months, int[] scheduleOffsets,
+                            double[] interestPaid, double[] principalPaid, double[] remainingBalance) {
+            requireSameLength(principals.length, rates.length, months.length, scheduleOffsets.length - 1);
+            for (int i = 0; i < principals.length; i++) {
+                if (scheduleOffsets[i + 1] - scheduleOffsets[i] != months[i]) {
+                    throw new IllegalArgumentException("scheduleOffsets do not match months at loan " + i);
+                }
+                writeSchedule(principals[i], rates[i], months[i],
+                        interestPaid, principalPaid, remainingBalance, scheduleOffsets[i]);
+            }
+        }
+
+        /** writeSchedules에 넘길 오프셋 배열을 만든다. 마지막 원소는 필요한 버퍼 전체 크기다. */
+        static int[] scheduleOffsetsOf(int[] months) {
+            int[] offsets = new int[months.length + 1];
+            for (int i = 0; i < months.length; i++) {
+                if (months[i] <= 0) throw new IllegalArgumentException("Months must be positive");
+                offsets[i + 1] = Math.addExact(offsets[i], months[i]);
+            }
+            return offsets;
+        }
+
+        /** 오프셋 계산, 버퍼 할당, 스케줄 기록을 한 번에 한다. */
+        AmortizationSchedules schedulesOf(double[] principals, double[] rates, int[] months) {
+            int[] offsets = scheduleOffsetsOf(months);
+            int totalPeriods = offsets[months.length];
+            AmortizationSchedules schedules = new AmortizationSchedules(offsets,
+                    new double[totalPeriods], new double[totalPeriods], new double[totalPeriods]);
+            writeSchedules(principals, rates, months, offsets,
+                    schedules.interestPaid, schedules.principalPaid, schedules.remainingBalance);
+            return schedules;
+        }
+
+        private AnnuityFactor factorFor(double rate, int months) {
+            FactorKey key = new FactorKey(rate, months);
+            AnnuityFactor factor = factorCache.get(key);
+            if (factor != null) {
+                return factor;
+            }
+
+            factor = AnnuityFactor.of(rate, months);
+            // 상한을 넘으면 통째로 비운다: 자주 쓰는 조합은 곧 다시 채워지고, 관리 비용이 거의 없다
+            if (factorCache.size() >= cacheCapacity) {
+                factorCache.clear();
+            }
+            factorCache.put(key, factor);
+            return factor;
+        }
+
+        private static void requireSameLength(int... lengths) {
+            for (int length : lengths) {
+                if (length != lengths[0]) {
+                    throw new IllegalArgumentException("array lengths differ: " + Arrays.toString(lengths));
+                }
+            }
+        }
+
+        private static final class FactorKey {
+            private final long rateBits;
+            private final int months;
+
+            private FactorKey(double rate, int months) {
+                this.rateBits = Double.doubleToLongBits(rate);
+                this.months = months;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) return true;
+                if (!(o instanceof FactorKey)) return false;
+                FactorKey that = (FactorKey) o;
+                return rateBits == that.rateBits && months == that.months;
+            }
+
+            @Override
+            public int hashCode() {
+                return 31 * Long.hashCode(rateBits) + months;
+            }
+        }
+
+        private static final class AnnuityFactor {
+            private final double rate;
+            private final int months;
+            private final double numerator;   // r × (1+r)^n
+            private final double denominator; // (1+r)^n − 1
+
+            private AnnuityFactor(double rate, int months, double numerator, double denominator) {
+                this.rate = rate;
+                this.months = months;
+                this.numerator = numerator;
+                this.denominator = denominator;
+            }
+
+            static AnnuityFactor of(double rate, int months) {
+                if (rate == 0) {
+                    // 무이자: 원금 × 1 / n = 원금 / n (건별 계산과 같은 값)
+                    return new AnnuityFactor(rate, months, 1, months);
+                }
+                double growth = Math.pow(1 + rate, months);
+                return new AnnuityFactor(rate, months, rate * growth, growth - 1);
+            }
+
+            boolean matches(double otherRate, int otherMonths) {
+                return months == otherMonths && Double.compare(rate, otherRate) == 0;
+            }
+        }
+    }
+
+    /** 여러 대출의 상환 스케줄. 대출 k의 회차는 각 배열의 [offsetOf(k), offsetOf(k) + periodsOf(k)) 구간에 있다. */
+    static class AmortizationSchedules {
+        private final int[] offsets;
+        private final double[] interestPaid;
+        private final double[] principalPaid;
+        private final double[] remainingBalance;
+
+        AmortizationSchedules(int[] offsets, double[] interestPaid, double[] principalPaid, double[] remainingBalance) {
+            this.offsets = offsets;
+            this.interestPaid = interestPaid;
+            this.principalPaid = principalPaid;
+            this.remainingBalance = remainingBalance;
+        }
+
+        public int loanCount() { return offsets.length - 1; }
+        public int offsetOf(int loan) { return offsets[loan]; }
+        public int periodsOf(int loan) { return offsets[loan + 1] - offsets[loan]; }
+        public double interestPaidAt(int loan, int period) { return interestPaid[indexOf(loan, period)]; }
+        public double principalPaidAt(int loan, int period) { return principalPaid[indexOf(loan, period)]; }
+        public double remainingBalanceAt(int loan, int period) { return remainingBalance[indexOf(loan, period)]; }
+
+        private int indexOf(int loan, int period) {
+            if (period < 0 || period >= periodsOf(loan)) {
+                throw new IndexOutOfBoundsException("period " + period + " of loan " + loan);
+            }
+            return offsets[loan] + period;
+        }
+    }
+
+    /**
+     * 카디널리티가 낮은 직원 속성(평가 등급, 경력 구간, 고용 형태, 상태, 부서)별 비트맵 인덱스.
+     *
+     * 속성 값마다 "그 값을 가진 직원의 위치" 비트맵을 두고, 여러 조건 조회는 비트맵 AND/OR로 계산한다.
+     * 스트림 필터처럼 조건마다 전체 목록을 훑지 않으므로, 같은 직원 집합에 조회를 여러 번 할수록 이득이 크다.
+     * 인덱스는 만든 시점의 목록에 대한 스냅샷이다. 직원 정보가 바뀌면 다시 만들어야 한다.
+     */
+    static class EmployeeBitmapIndex {
+        // 경력 구간의 시작 연차. 승진 기준(2년)이 구간 경계와 맞도록 잡았다.
+        private static final int[] EXPERIENCE_BUCKET_STARTS = {0, 1, 2, 3, 5, 10, 20};
+
+        private final Employee[] employees;
+        private final RoaringBitmap all;
+        private final Map<Integer, RoaringBitmap> byPerformanceRating = new TreeMap<>();
+        private final RoaringBitmap[] byExperienceBucket = new RoaringBitmap[EXPERIENCE_BUCKET_STARTS.length];
+        private final Map<String, RoaringBitmap> byEmployeeType = new HashMap<>();
+        private final Map<String, RoaringBitmap> byStatus = new HashMap<>();
+        private final Map<String, RoaringBitmap> byDepartment = new HashMap<>();
+
+        private EmployeeBitmapIndex(Employee[] employees) {
+            this.employees = employees;
+            this.all = new RoaringBitmap();
+            for (int i = 0; i < byExperienceBucket.length; i++) {
+                byExperienceBucket[i] = new RoaringBitmap();
+            }
+        }
+
+        static EmployeeBitmapIndex of(List<Employee> employees) {
+            EmployeeBitmapIndex index = new EmployeeBitmapIndex(employees.toArray(new Employee[0]));
+            for (int position = 0; position < index.employees.length; position++) {
+                index.add(position, index.employees[position]);
+            }
+            return index;
+        }
+
+        EmployeeQuery query() {
+            return new EmployeeQuery(this);
+        }
+
+        private void add(int position, Employee employee) {
+            all.add(position);
+            byPerformanceRating.computeIfAbsent(employee.getPerformanceRating(), ignored -> new RoaringBitmap()).add(position);
+            byExperienceBucket[experienceBucketOf(employee.getYearsOfExperience())].add(position);
+            byEmployeeType.computeIfAbsent(employee.getEmployeeType(), ignored -> new RoaringBitmap()).add(position);
+            byStatus.computeIfAbsent(employee.getStatus(), ignored -> new RoaringBitmap()).add(position);
+            byDepartment.computeIfAbsent(employee.getDepartment(), ignored -> new RoaringBitmap()).add(position);
+        }
+
+        private static int experienceBucketOf(int years) {
+            int bucket = 0;
+            while (bucket + 1 < EXPERIENCE_BUCKET_STARTS.length && years >= EXPERIENCE_BUCKET_STARTS[bucket + 1]) {
+                bucket++;
+            }
+            return bucket;
+        }
+
+        private RoaringBitmap performanceRatingAtLeast(int minimumRating) {
+            RoaringBitmap result = new RoaringBitmap();
+            for (Map.Entry<Integer, RoaringBitmap> entry : byPerformanceRating.entrySet()) {
+                if (entry.getKey() >= minimumRating) {
+                    result = RoaringBitmap.or(result, entry.getValue());
+                }
+            }
+            return result;
+        }
+
+        // 경계와 딱 맞는 구간은 통째로 OR, 걸치는 구간만 직원별로 확인한다
+        private RoaringBitmap experienceAtLeast(int minimumYears) {
+            RoaringBitmap result = new RoaringBitmap();
+            int partialBucket = experienceBucketOf(minimumYears);
+            for (int bucket = partialBucket; bucket < byExperienceBucket.length; bucket++) {
+                boolean wholeBucketMatches = bucket > partialBucket || EXPERIENCE_BUCKET_STARTS[bucket] >= minimumYears;
+                if (wholeBucketMatches) {
+                    result = RoaringBitmap.or(result, byExperienceBucket[bucket]);
+                } else {
+                    RoaringBitmap refined = new RoaringBitmap();
+                    byExperienceBucket[bucket].forEach(position -> {
+                        if (employees[position].getYearsOfExperience() >= minimumYears) refined.add(position);
+                    });
+                    result = RoaringBitmap.or(result, refined);
+                }
+            }
+            return result;
+        }
+
+        private static RoaringBitmap anyOf(Map<String, RoaringBitmap> bitmapsByValue, String... values) {
+            RoaringBitmap result = new RoaringBitmap();
+            for (String value : values) {
+                RoaringBitmap bitmap = bitmapsByValue.get(value);
+                if (bitmap != null) {
+                    result = RoaringBitmap.or(result, bitmap);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 비트맵 인덱스 조회. 메서드마다 조건 하나를 AND로 더하고,
+     * 같은 속성의 여러 값(예: 부서 A 또는 B)은 OR로 묶는다.
+     */
+    static class EmployeeQuery {
+        private final EmployeeBitmapIndex index;
+        private RoaringBitmap matches;
+
+        private EmployeeQuery(EmployeeBitmapIndex index) {
+            this.index = index;
+            this.matches = index.all;
+        }
+
+        EmployeeQuery performanceRatingAtLeast(int minimumRating) {
+            return and(index.performanceRatingAtLeast(minimumRating));
+        }
+
+        EmployeeQuery experienceAtLeast(int minimumYears) {
+            return and(index.experienceAtLeast(minimumYears));
+        }
+
+        EmployeeQuery employeeTypeIn(String... employeeTypes) {
+            return and(EmployeeBitmapIndex.anyOf(index.byEmployeeType, employeeTypes));
+        }
+
+        EmployeeQuery statusIn(EmployeeStatus... statuses) {
+            String[] names = new String[statuses.length];
+            for (int i = 0; i < statuses.length; i++) {
+                names[i] = statuses[i].name();
+            }
+            return and(EmployeeBitmapIndex.anyOf(index.byStatus, names));
+        }
+
+        EmployeeQuery departmentIn(String... departments) {
+            return and(EmployeeBitmapIndex.anyOf(index.byDepartment, departments));
+        }
+
+        int count() {
+            return matches.cardinality();
+        }
+
+        /** 조건에 맞는 직원을 원래 목록의 순서대로 반환 */
+        List<Employee> list() {
+            List<Employee> result = new ArrayList<>(matches.cardinality());
+            matches.forEach(position -> result.add(index.employees[position]));
+            return result;
+        }
+
+        private EmployeeQuery and(RoaringBitmap criterion) {
+            matches = RoaringBitmap.and(matches, criterion);
+            return this;
+        }
+    }
+
+    /**
+     * Roaring 방식의 압축 비트맵.
+     * 32비트 값을 상위 16비트로 나눈 구간(container)마다, 원소가 적으면 정렬된 char 배열(최대 4096개 = 8KB),
+     * 많으면 65536비트 비트맵(8KB)으로 저장한다. 어느 쪽이든 구간당 8KB를 넘지 않는다.
+     * and/or는 새 비트맵을 반환하며 피연산자는 바꾸지 않는다.
+     */
+    static final class RoaringBitmap {
+        private char[] keys = new char[4];
+        private Container[] containers = new Container[4];
+        private int size;
+
+        void add(int value) {
+            char high = (char) (value >>> 16);
+            int index = indexOfKey(high);
+            if (index < 0) {
+                index = -index - 1;
+                insertContainer(index, high, new ArrayContainer());
+            }
+            containers[index] = containers[index].add((char) value);
+        }
+
+        int cardinality() {
+            int cardinality = 0;
+            for (int i = 0; i < size; i++) {
+                cardinality += containers[i].cardinality();
+            }
+            return cardinality;
+        }
+
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                containers[i].forEach(keys[i] << 16, action);
+            }
+        }
+
+        static RoaringBitmap and(RoaringBitmap left, RoaringBitmap right) {
+            RoaringBitmap result = new RoaringBitmap();
+            int l = 0;
+            int r = 0;
+            while (l < left.size && r < right.size) {
+                if (left.keys[l] < right.keys[r]) {
+                    l++;
+                } else if (left.keys[l] > right.keys[r]) {
+                    r++;
+                } else {
+                    Container container = left.containers[l].and(right.containers[r]);
+                    if (container.cardinality() > 0) {
+                        result.insertContainer(result.size, left.keys[l], container);
+                    }
+                    l++;
+                    r++;
+                }
+            }
+            return result;
+        }
+
+        static RoaringBitmap or(RoaringBitmap left, RoaringBitmap right) {
+            RoaringBitmap result = new RoaringBitmap();
+            int l = 0;
+            int r = 0;
+            while (l < left.size || r < right.size) {
+                if (r == right.size || (l < left.size && left.keys[l] < right.keys[r])) {
+                    result.insertContainer(result.size, left.keys[l], left.containers[l]);
+                    l++;
+                } else if (l == left.size || left.keys[l] > right.keys[r]) {
+                    result.insertContainer(result.size, right.keys[r], right.containers[r]);
+                    r++;
+                } else {
+                    result.insertContainer(result.size, left.keys[l], left.containers[l].or(right.containers[r]));
+                    l++;
+                    r++;
+                }
+            }
+            return result;
+        }
+
+        // 인덱스는 위치 순서대로 만들어지므로 마지막 구간부터 확인한다
+        private int indexOfKey(char high) {
+            if (size > 0 && keys[size - 1] == high) {
+                return size - 1;
+            }
+            return Arrays.binarySearch(keys, 0, size, high);
+        }
+
+        // or 결과는 피연산자의 container를 공유할 수 있으므로, add는 공유되지 않은 비트맵에서만 호출된다
+        private void insertContainer(int index, char high, Container container) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(containers, index, containers, index + 1, size - index);
+            keys[index] = high;
+            containers[index] = container;
+            size++;
+        }
+
+        private abstract static class Container {
+            abstract Container add(char value);
+
+            abstract Container and(Container other);
+
+            abstract Container or(Container other);
+
+            abstract int cardinality();
+
+            abstract boolean contains(char value);
+
+            abstract void forEach(int highBits, IntConsumer action);
+        }
+
+        private static final class ArrayContainer extends Container {
+            private static final int MAX_SIZE = 4096;
+
+            private char[] values;
+            private int size;
+
+            private ArrayContainer() {
+                this(new char[4], 0);
+            }
+
+            private ArrayContainer(char[] values, int size) {
+                this.values = values;
+                this.size = size;
+            }
+
+            @Override
+            Container add(char value) {
+                int index = (size > 0 && values[size - 1] < value) ? -(size + 1) : Arrays.binarySearch(values, 0, size, value);
+                if (index >= 0) {
+                    return this;
+                }
+                if (size == MAX_SIZE) {
+                    return toBitmap().add(value);
+                }
+                index = -index - 1;
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, Math.min(MAX_SIZE, size * 2));
+                }
+                System.arraycopy(values, index, values, index + 1, size - index);
+                values[index] = value;
+                size++;
+                return this;
+            }
+
+            @Override
+            Container and(Container other) {
+                char[] result = new char[size];
+                int count = 0;
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+                return new ArrayContainer(result, count);
+            }
+
+            @Override
+            Container or(Container other) {
+                if (other instanceof BitmapContainer) {
+                    return other.or(this);
+                }
+                ArrayContainer right = (ArrayContainer) other;
+                char[] merged = new char[size + right.size];
+                int count = 0;
+                int l = 0;
+                int r = 0;
+                while (l < size || r < right.size) {
+                    char next;
+                    if (r == right.size || (l < size && values[l] < right.values[r])) {
+                        next = values[l++];
+                    } else if (l == size || values[l] > right.values[r]) {
+                        next = right.values[r++];
+                    } else {
+                        next = values[l++];
+                        r++;
+                    }
+                    merged[count++] = next;
+                }
+                ArrayContainer result = new ArrayContainer(merged, count);
+                return count > MAX_SIZE ? result.toBitmap() : result;
+            }
+
+            @Override
+            int cardinality() {
+                return size;
+            }
+
+            @Override
+            boolean contains(char value) {
+                return Arrays.binarySearch(values, 0, size, value) >= 0;
+            }
+
+            @Override
+            void forEach(int highBits, IntConsumer action) {
+                for (int i = 0; i < size; i++) {
+                    action.accept(highBits | values[i]);
+                }
+            }
+
+            private BitmapContainer toBitmap() {
+                BitmapContainer bitmap = new BitmapContainer();
+                for (int i = 0; i < size; i++) {
+                    bitmap.add(values[i]);
+                }
+                return bitmap;
+            }
+        }
+
+        private static final class BitmapContainer extends Container {
+            private final long[] words;
+            private int cardinality;
+
+            private BitmapContainer() {
+                this(new long[1024], 0);
+            }
+
+            private BitmapContainer(long[] words, int cardinality) {
+                this.words = words;
+                this.cardinality = cardinality;
+            }
+
+            @Override
+            Container add(char value) {
+                long before = words[value >>> 6];
+                long after = before | (1L << value);
+                if (before != after) {
+                    words[value >>> 6] = after;
+                    cardinality++;
+                }
+                return this;
+            }
+
+            @Override
+            Container and(Container other) {
+                if (other instanceof ArrayContainer) {
+                    return other.and(this);
+                }
+                long[] otherWords = ((BitmapContainer) other).words;
+                long[] result = new long[1024];
+                int count = 0;
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = words[i] & otherWords[i];
+                    count += Long.bitCount(result[i]);
+                }
+                BitmapContainer bitmap = new BitmapContainer(result, count);
+                return count <= ArrayContainer.MAX_SIZE ? bitmap.toArray() : bitmap;
+            }
+
+            @Override
+            Container or(Container other) {
+                long[] result = words.clone();
+                int count = cardinality;
+                if (other instanceof BitmapContainer) {
+                    long[] otherWords = ((BitmapContainer) other).words;
+                    count = 0;
+                    for (int i = 0; i < result.length; i++) {
+                        result[i] |= otherWords[i];
+                        count += Long.bitCount(result[i]);
+                    }
+                    return new BitmapContainer(result, count);
+                }
+                BitmapContainer bitmap = new BitmapContainer(result, count);
+                other.forEach(0, value -> bitmap.add((char) value));
+                return bitmap;
+            }
+
+            @Override
+            int cardinality() {
+                return cardinality;
+            }
+
+            @Override
+            boolean contains(char value) {
+                return (words[value >>> 6] & (1L << value)) != 0;
+            }
+
+            @Override
+            void forEach(int highBits, IntConsumer action) {
+                for (int i = 0; i < words.length; i++) {
+                    long word = words[i];
+                    while (word != 0) {
+                        action.accept(highBits | (i << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            }
+
+            private ArrayContainer toArray() {
+                char[] values = new char[cardinality];
+                int[] count = {0};
+                forEach(0, value -> values[count[0]++] = (char) value);
+                return new ArrayContainer(values, cardinality);
+            }
+        }
+    }
+
+    /** 급여 인덱스의 키. 급여 오름차순, 같은 급여는 ID 오름차순. */
+    static final class SalaryKey implements Comparable<SalaryKey> {
+        // 범위 경계용 표식: null ID는 같은 급여의 어떤 실제 키보다 작거나(LOWEST) 크다(HIGHEST)
+        private static final int LOWEST = -1;
+        private static final int HIGHEST = 1;
+
+        private final double salary;
+        private final String id;
+        private final int boundary;
+
+        SalaryKey(double salary, String id) {
+            this(salary, Objects.requireNonNull(id, "employee id"), 0);
+        }
+
+        private SalaryKey(double salary, String id, int boundary) {
+            this.salary = salary;
+            this.id = id;
+            this.boundary = boundary;
+        }
+
+        static SalaryKey lowerBoundOf(double salary) {
+            return new SalaryKey(salary, null, LOWEST);
+        }
+
+        static SalaryKey upperBoundOf(double salary) {
+            return new SalaryKey(salary, null, HIGHEST);
+        }
+
+        @Override
+        public int compareTo(SalaryKey other) {
+            int bySalary = Double.compare(salary, other.salary);
+            if (bySalary != 0) return bySalary;
+            if (boundary != 0 || other.boundary != 0) return Integer.compare(boundary, other.boundary);
+            return id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SalaryKey)) return false;
+            return compareTo((SalaryKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Double.hashCode(salary) + Objects.hashCode(id);
+        }
+    }
+
+    /** 영속 맵 스냅샷을 List로 보여주는 읽기 전용 뷰. 순회는 트라이를 직접 따라가며 복사하지 않는다. */
+    static class EmployeeSnapshot extends AbstractList<Employee> {
+        private final PersistentEmployeeMap snapshot;
+        private volatile Employee[] indexed;
+
+        EmployeeSnapshot(PersistentEmployeeMap snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Iterator<Employee> iterator() {
+            return snapshot.iterator();
+        }
+
+        @Override
+        public int size() {
+            return snapshot.size();
+        }
+
+        // 인덱스 접근이 필요할 때만 한 번 배열로 펼친다 (순회만 하는 대부분의 호출자는 비용이 없음)
+        @Override
+        public Employee get(int index) {
+            Employee[] array = indexed;
+            if (array == null) {
+                array = new Employee[snapshot.size()];
+                int i = 0;
+                for (Employee employee : snapshot) {
+                    array[i++] = employee;
+                }
+                indexed = array;
+            }
+            return array[index];
+        }
+    }
+
+    /**
+     * 직원 ID → 직원의 영속 해시 맵 (HAMT: Hash Array Mapped Trie).
+     * 해시를 5비트씩 끊어 최대 32갈래 노드를 내려가며, 노드는 비트맵으로 실제 존재하는 자식만 배열에 담는다.
+     * 모든 연산은 새 맵을 반환하고 기존 맵은 절대 바꾸지 않는다.
+     */
+    static final class PersistentEmployeeMap implements Iterable<Employee> {
+        static final PersistentEmployeeMap EMPTY = new PersistentEmployeeMap(TrieNode.EMPTY, 0);
+
+        private static final int BITS_PER_LEVEL = 5;
+        private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+        private static final int MAX_DEPTH = 8; // 32비트 해시를 다 쓰면 충돌 노드 (7단계 + 충돌 노드 1단계)
+
+        private final TrieNode root;
+        private final int size;
+
+        private PersistentEmployeeMap(TrieNode root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        Employee get(String id) {
+            return root.get(id, hashOf(id), 0);
+        }
+
+        PersistentEmployeeMap put(String id, Employee employee) {
+            boolean[] added = new boolean[1];
+            TrieNode newRoot = root.put(new TrieLeaf(id, hashOf(id), employee), 0, added);
+            return newRoot == root ? this : new PersistentEmployeeMap(newRoot, added[0] ? size + 1 : size);
+        }
+
+        PersistentEmployeeMap remove(String id) {
+            TrieNode newRoot = root.remove(id, hashOf(id), 0);
+            if (newRoot == root) return this;
+            return new PersistentEmployeeMap(newRoot == null ? TrieNode.EMPTY : newRoot, size - 1);
+        }
+
+        @Override
+        public Iterator<Employee> iterator() {
+            return new TrieIterator(root);
+        }
+
+        private static int hashOf(String id) {
+            int h = Objects.requireNonNull(id, "employee id").hashCode();
+            return h ^ (h >>> 16);
+        }
+
+        private static final class TrieLeaf {
+            private final String key;
+            private final int hash;
+            private final Employee value;
+
+            private TrieLeaf(String key, int hash, Employee value) {
+                this.key = key;
+                this.hash = hash;
+                this.value = value;
+            }
+        }
+
+        /**
+         * slots에는 TrieLeaf 또는 하위 TrieNode가 들어간다.
+         * shift가 32 이상인 노드는 해시가 완전히 같은 항목들의 충돌 노드로, 비트맵 없이 선형 탐색한다.
+         */
+        private static final class TrieNode {
+            private static final TrieNode EMPTY = new TrieNode(0, new Object[0]);
+
+            private final int bitmap;
+            private final Object[] slots;
+
+            private TrieNode(int bitmap, Object[] slots) {
+                this.bitmap = bitmap;
+                this.slots = slots;
+            }
+
+            private Employee get(String key, int hash, int shift) {
+                TrieNode node = this;
+                while (shift < Integer.SIZE) {
+                    int bit = bitFor(hash, shift);
+                    if ((node.bitmap & bit) == 0) return null;
+
+                    Object slot = node.slots[node.indexOf(bit)];
+                    if (slot instanceof TrieLeaf) {
+                        TrieLeaf leaf = (TrieLeaf) slot;
+                        return leaf.key.equals(key) ? leaf.value : null;
+                    }
+                    node = (TrieNode) slot;
+                    shift += BITS_PER_LEVEL;
+                }
+                for (Object slot : node.slots) {
+                    TrieLeaf leaf = (TrieLeaf) slot;
+                    if (leaf.key.equals(key)) return leaf.value;
+                }
+                return null;
+            }
+
+            private TrieNode put(TrieLeaf leaf, int shift, boolean[] added) {
+                if (shift >= Integer.SIZE) {
+                    return putColliding(leaf, added);
+                }
+
+                int bit = bitFor(leaf.hash, shift);
+                int index = indexOf(bit);
+                if ((bitmap & bit) == 0) {
+                    added[0] = true;
+                    return new TrieNode(bitmap | bit, insertAt(slots, index, leaf));
+                }
+
+                Object slot = slots[index];
+                if (slot instanceof TrieNode) {
+                    TrieNode child = (TrieNode) slot;
+                    TrieNode newChild = child.put(leaf, shift + BITS_PER_LEVEL, added);
+                    return newChild == child ? this : new TrieNode(bitmap, replaceAt(slots, index, newChild));
+                }
+
+                TrieLeaf existing = (TrieLeaf) slot;
+                if (existing.key.equals(leaf.key)) {
+                    return existing.value == leaf.value ? this : new TrieNode(bitmap, replaceAt(slots, index, leaf));
+                }
+                // 같은 자리에 다른 키 → 한 단계 아래 노드로 둘을 나눠 담는다
+                TrieNode split = EMPTY.put(existing, shift + BITS_PER_LEVEL, new boolean[1])
+                        .put(leaf, shift + BITS_PER_LEVEL, added);
+                return new TrieNode(bitmap, replaceAt(slots, index, split));
+            }
+
+            private TrieNode putColliding(TrieLeaf leaf, boolean[] added) {
+                for (int i = 0; i < slots.length; i++) {
+                    TrieLeaf existing = (TrieLeaf) slots[i];
+                    if (existing.key.equals(leaf.key)) {
+                        return existing.value == leaf.value ? this : new TrieNode(0, replaceAt(slots, i, leaf));
+                    }
+                }
+                added[0] = true;
+                return new TrieNode(0, insertAt(slots, slots.length, leaf));
+            }
+
+            /** 키가 없으면 this, 노드가 비게 되면 null을 반환한다. */
+            private TrieNode remove(String key, int hash, int shift) {
+                if (shift >= Integer.SIZE) {
+                    for (int i = 0; i < slots.length; i++) {
+                        if (((TrieLeaf) slots[i]).key.equals(key)) {
+                            return slots.length == 1 ? null : new TrieNode(0, removeAt(slots, i));
+                        }
+                    }
+                    return this;
+                }
+
+                int bit = bitFor(hash, shift);
+                if ((bitmap & bit) == 0) return this;
+
+                int index = indexOf(bit);
+                Object slot = slots[index];
+                if (slot instanceof TrieLeaf) {
+                    if (!((TrieLeaf) slot).key.equals(key)) return this;
+                    return withoutSlot(bit, index);
+                }
+
+                TrieNode child = (TrieNode) slot;
+                TrieNode newChild = child.remove(key, hash, shift + BITS_PER_LEVEL);
+                if (newChild == child) return this;
+                if (newChild == null) return withoutSlot(bit, index);
+                return new TrieNode(bitmap, replaceAt(slots, index, newChild));
+            }
+
+            private TrieNode withoutSlot(int bit, int index) {
+                return slots.length == 1 ? null : new TrieNode(bitmap & ~bit, removeAt(slots, index));
+            }
+
+            private int indexOf(int bit) {
+                return Integer.bitCount(bitmap & (bit - 1));
+            }
+
+            private static int bitFor(int hash, int shift) {
+                return 1 << ((hash >>> shift) & LEVEL_MASK);
+            }
+
+            private static Object[] insertAt(Object[] array, int index, Object value) {
+                Object[] copy = new Object[array.length + 1];
+                System.arraycopy(array, 0, copy, 0, index);
+                copy[index] = value;
+                System.arraycopy(array, index, copy, index + 1, array.length - index);
+                return copy;
+            }
+
+            private static Object[] replaceAt(Object[] array, int index, Object value) {
+                Object[] copy = array.clone();
+                copy[index] = value;
+                return copy;
+            }
+
+            private static Object[] removeAt(Object[] array, int index) {
+                Object[] copy = new Object[array.length - 1];
+                System.arraycopy(array, 0, copy, 0, index);
+                System.arraycopy(array, index + 1, copy, index, array.length - index - 1);
+                return copy;
+            }
+        }
+
+        /** 깊이 우선 순회. 트라이 깊이가 최대 MAX_DEPTH라 고정 크기 배열 스택으로 충분하다. */
+        private static final class TrieIterator implements Iterator<Employee> {
+            private final TrieNode[] nodes = new TrieNode[MAX_DEPTH + 1];
+            private final int[] positions = new int[MAX_DEPTH + 1];
+            private int depth;
+            private TrieLeaf next;
+
+            private TrieIterator(TrieNode root) {
+                nodes[0] = root;
+                advance();
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Employee next() {
+                if (next == null) throw new NoSuchElementException();
+                Employee current = next.value;
+                advance();
+                return current;
+            }
+
+            private void advance() {
+                next = null;
+                while (depth >= 0) {
+                    TrieNode node = nodes[depth];
+                    if (positions[depth] == node.slots.length) {
+                        depth--;
+                        continue;
+                    }
+                    Object slot = node.slots[positions[depth]++];
+                    if (slot instanceof TrieLeaf) {
+                        next = (TrieLeaf) slot;
+                        return;
+                    }
+                    depth++;
+                    nodes[depth] = (TrieNode) slot;
+                    positions[depth] = 0;
+                }
+            }
+        }
+    }
+
+    static class SimpleEmailService implements EmailService {
+        @Override
+        public void send(String to, String subject, String body) {
+            System.out.println("Email sent to: " + to + " | Subject: " + subject);
+        }
+    }
+
+    static final class EmailMessage {
+        private final String to;
+        private final String subject;
+        private final String body;
+
+        EmailMessage(String to, String subject, String body) {
+            this.to = to;
+            this.subject = subject;
+            this.body = body;
+        }
+
+        public String getTo() { return to; }
+        public String getSubject() { return subject; }
+        public String getBody() { return body; }
+    }
+
+    /**
+     * 대량 메일 발송 파이프라인. 단계마다 전용 스레드가 있고 단계 사이는 크기가 정해진 큐로 연결된다.
+     *
+     *   validate(1) → render(renderThreads) → send(senderThreads, 최대 batchSize건씩) → audit(1)
+     *
+     * 큐가 가득 차면 앞 단계가 기다리므로 수신자가 아무리 많아도 메모리 사용량은 큐 크기로 제한된다.
+     * 발송 스레드들은 주입받은 EmailService 하나를 계속 재사용하고 sendBatch로 묶어서 보낸다.
+     */
+    static final class BulkEmailSender {
+        private final EmailService emailService;
+        private final AuditService auditService;
+        private final int renderThreads;
+        private final int senderThreads;
+        private final int batchSize;
+        private final int queueCapacity;
+
+        BulkEmailSender(EmailService emailService, AuditService auditService,
+                        int renderThreads, int senderThreads, int batchSize, int queueCapacity) {
+            if (renderThreads <= 0 || senderThreads <= 0 || batchSize <= 0 || queueCapacity <= 0) {
+                throw new IllegalArgumentException("threads, batchSize and queueCapacity must be > 0");
+            }
+            this.emailService = Objects.requireNonNull(emailService, "emailService");
+            this.auditService = Objects.requireNonNull(auditService, "auditService");
+            this.renderThreads = renderThreads;
+            this.senderThreads = senderThreads;
+            this.batchSize = batchSize;
+            this.queueCapacity = queueCapacity;
+        }
+
+        static BulkEmailSender withDefaults(EmailService emailService, AuditService auditService) {
+            return new BulkEmailSender(emailService, auditService, 2, 4, 50, 1_024);
+        }
+
+        /** 모든 수신자가 감사 단계까지 통과하거나 거부/실패로 끝날 때까지 기다린 뒤 통계를 반환한다. */
+        BulkEmailStatistics send(Iterable<Employee> recipients, EmailTemplate template) throws InterruptedException {
+            Objects.requireNonNull(template, "template");
+            BulkEmailStatistics statistics = new BulkEmailStatistics();
+            BlockingQueue<Employee> validationQueue = new ArrayBlockingQueue<>(queueCapacity);
+            BlockingQueue<Employee> renderQueue = new ArrayBlockingQueue<>(queueCapacity);
+            BlockingQueue<EmailMessage> sendQueue = new ArrayBlockingQueue<>(queueCapacity);
+            BlockingQueue<EmailMessage> auditQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+            long startNanos = System.nanoTime();
+            List<BatchingStage<?>> stages = List.of(
+                    stage("email-validate", 1, validationQueue, 1, statistics.validate,
+                            batch -> validate(batch, renderQueue, statistics)),
+                    stage("email-render", renderThreads, renderQueue, 1, statistics.render,
+                            batch -> render(batch, template, sendQueue)),
+                    stage("email-send", senderThreads, sendQueue, batchSize, statistics.send,
+                            batch -> sendBatch(batch, auditQueue, statistics)),
+                    stage("email-audit", 1, auditQueue, batchSize, statistics.audit,
+                            batch -> audit(batch, template)));
+            try {
+                for (Employee recipient : recipients) {
+                    validationQueue.put(recipient);
+                }
+            } finally {
+                for (BatchingStage<?> stage : stages) {
+                    stage.finish();
+                }
+            }
+            statistics.elapsedNanos = System.nanoTime() - startNanos;
+            return statistics;
+        }
+
+        private static void validate(List<Employee> recipients, BlockingQueue<Employee> next,
+                                     BulkEmailStatistics statistics) throws InterruptedException {
+            for (Employee recipient : recipients) {
+                if (recipient != null && isDeliverableEmail(recipient.getEmail())) {
+                    next.put(recipient);
+                } else {
+                    statistics.rejectedCount.increment();
+                    if (recipient != null) {
+                        statistics.rejected.add(recipient);
+                    }
+                }
+            }
+        }
+
+        private static void render(List<Employee> recipients, EmailTemplate template,
+                                   BlockingQueue<EmailMessage> next) throws InterruptedException {
+            for (Employee recipient : recipients) {
+                next.put(new EmailMessage(recipient.getEmail(), template.getSubject(),
+                        template.render(recipient.getName())));
+            }
+        }
+
+        // 처리 건수와 처리에 쓴 시간을 단계 통계에 남기고, 실패는 로그만 남겨 워커가 계속 돌게 한다
+        private static <T> BatchingStage<T> stage(String name, int threadCount, BlockingQueue<T> input, int maxBatch,
+                                                  StageThroughput throughput, BatchingStage.BatchHandler<T> handler) {
+            throughput.workerCount = threadCount;
+            return new BatchingStage<>(name, threadCount, input, maxBatch,
+                    batch -> {
+                        long started = System.nanoTime();
+                        try {
+                            handler.handle(batch);
+                        } finally {
+                            throughput.record(batch.size(), System.nanoTime() - started);
+                        }
+                    },
+                    (batch, failure) -> {
+                        throughput.errors.increment();
+                        logger.log(Level.WARNING, "Bulk email stage " + throughput.getName() + " failed", failure);
+                    });
+        }
+
+        // 묶음 발송이 실패하면 아직 보내지 않은 것만 한 건씩 다시 보내서,
+        // 주소 하나의 문제로 묶음 전체가 실패하지도, 이미 보낸 메일이 두 번 나가지도 않게 한다
+        private void sendBatch(List<EmailMessage> messages, BlockingQueue<EmailMessage> next,
+                               BulkEmailStatistics statistics) throws InterruptedException {
+            int sentCount;
+            try {
+                emailService.sendBatch(messages);
+                sentCount = messages.size();
+            } catch (PartialBatchSendException partialFailure) {
+                sentCount = partialFailure.getSentCount();
+            } catch (RuntimeException batchFailure) {
+                sentCount = 0; // 전부 아니면 전무인 구현체: 하나도 보내지지 않았다
+            }
+
+            for (int i = 0; i < sentCount; i++) {
+                next.put(messages.get(i));
+            }
+            for (int i = sentCount; i < messages.size(); i++) {
+                sendOne(messages.get(i), next, statistics);
+            }
+        }
+
+        private void sendOne(EmailMessage message, BlockingQueue<EmailMessage> next,
+                             BulkEmailStatistics statistics) throws InterruptedException {
+            try {
+                emailService.send(message.getTo(), message.getSubject(), message.getBody());
+            } catch (RuntimeException e) {
+                statistics.failed.add(message);
+                return;
+            }
+            next.put(message);
+        }
+
+        private void audit(List<EmailMessage> messages, EmailTemplate template) {
+            for (EmailMessage message : messages) {
+                auditService.logActivity(message.getTo(), template.getSentActivity());
+            }
+        }
+    }
+
+    /**
+     * 입력 큐에서 최대 maxBatch건씩 꺼내 처리하는 워커 스레드 묶음 (파이프라인의 "단계" 하나).
+     *
+     * - 첫 건은 잠깐 기다려 꺼내고, 나머지는 이미 쌓인 만큼만 drainTo로 함께 꺼낸다
+     *   → 한가할 때는 한 건씩 바로, 밀릴 때는 묶음으로 처리된다.
+     * - 처리 중 RuntimeException은 FailureHandler에 넘기고 워커는 계속 돈다.
+     *   (장애 하나가 스레드를 죽여 파이프라인 전체가 멈추지 않도록)
+     * - finish()는 "앞 단계가 끝났다"는 신호다. 큐가 빌 때까지 처리한 뒤 워커가 종료된다.
+     */
+    static final class BatchingStage<T> {
+        private static final long POLL_INTERVAL_MILLIS = 10;
+
+        interface BatchHandler<T> {
+            void handle(List<T> batch) throws InterruptedException;
+        }
+
+        interface FailureHandler<T> {
+            void onFailure(List<T> batch, RuntimeException failure);
+        }
+
+        private final BlockingQueue<T> input;
+        private final int maxBatch;
+        private final BatchHandler<T> handler;
+        private final FailureHandler<T> failureHandler;
+        private final List<Thread> workers = new ArrayList<>();
+        private volatile boolean upstreamFinished;
+
+        BatchingStage(String name, int threadCount, BlockingQueue<T> input, int maxBatch,
+                      BatchHandler<T> handler, FailureHandler<T> failureHandler) {
+            if (threadCount <= 0 || maxBatch <= 0) {
+                throw new IllegalArgumentException("threadCount and maxBatch must be > 0");
+            }
+            this.input = input;
+            this.maxBatch = maxBatch;
+            this.handler = handler;
+            this.failureHandler = failureHandler;
+            for (int i = 0; i < threadCount; i++) {
+                Thread worker = new Thread(this::run, name + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+
+        /** 앞 단계가 더 넣지 않음을 알리고, 큐에 남은 것까지 모두 처리될 때까지 기다린다. */
+        void finish() throws InterruptedException {
+            upstreamFinished = true;
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+
+        private void run() {
+            List<T> batch = new ArrayList<>(maxBatch);
+            try {
+                while (!upstreamFinished || !input.isEmpty()) {
+                    T first = input.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+
+                    batch.add(first);
+                    input.drainTo(batch, maxBatch - 1);
+                    handleSafely(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void handleSafely(List<T> batch) throws InterruptedException {
+            try {
+                handler.handle(batch);
+            } catch (RuntimeException e) {
+                failureHandler.onFailure(batch, e);
+            }
+        }
+    }
+
+    // 단계 하나의 처리량. busy 시간은 handler 안에서 보낸 시간의 합(모든 스레드 합산)이다.
+    static final class StageThroughput {
+        private final String name;
+        private final LongAdder items = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private volatile int workerCount;
+
+        StageThroughput(String name) {
+            this.name = name;
+        }
+
+        private void record(int itemCount, long elapsedNanos) {
+            items.add(itemCount);
+            busyNanos.add(elapsedNanos);
+        }
+
+        public String getName() { return name; }
+        public long getItemCount() { return items.sum(); }
+        public long getBusyNanos() { return busyNanos.sum(); }
+        public long getErrorCount() { return errors.sum(); }
+
+        // 스레드 수를 감안한 단계 처리 능력 (다른 단계를 기다린 시간은 빼고 계산)
+        public double getItemsPerSecond() {
+            long busy = getBusyNanos();
+            return busy == 0 ? 0 : getItemCount() * 1e9 * workerCount / busy;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s{items=%d, errors=%d, %.0f/s}",
+                    name, getItemCount(), getErrorCount(), getItemsPerSecond());
+        }
+    }
+
+    static final class BulkEmailStatistics {
+        private final StageThroughput validate = new StageThroughput("validate");
+        private final StageThroughput render = new StageThroughput("render");
+        private final StageThroughput send = new StageThroughput("send");
+        private final StageThroughput audit = new StageThroughput("audit");
+        private final LongAdder rejectedCount = new LongAdder();
+        private final Queue<Employee> rejected = new ConcurrentLinkedQueue<>();
+        private final Queue<EmailMessage> failed = new ConcurrentLinkedQueue<>();
+        private volatile long elapsedNanos;
+
+        public List<StageThroughput> getStages() { return List.of(validate, render, send, audit); }
+        public long getSentCount() { return audit.getItemCount(); }
+        public long getRejectedCount() { return rejectedCount.sum(); }
+        public List<Employee> getRejected() { return new ArrayList<>(rejected); }
+        public List<EmailMessage> getFailed() { return new ArrayList<>(failed); }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        public double getSentPerSecond() {
+            return elapsedNanos == 0 ? 0 : getSentCount() * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "BulkEmailStatistics{" +
+                    "sent=" + getSentCount() +
+                    ", rejected=" + getRejectedCount() +
+                    ", failed=" + failed.size() +
+                    ", sentPerSecond=" + String.format("%.0f", getSentPerSecond()) +
+                    ", stages=" + getStages() +
+                    '}';
+        }
+    }
+
+    /**
+     * 기본(개발용) 감사 로그. 최근 maxEntries건만 메모리에 남기고 출력하지 않는다.
+     * 호출마다 문자열을 만들지 않고, 포맷은 recentEntries()로 꺼내 볼 때만 한다.
+     * 파일에 남겨야 하는 운영 환경에서는 BinaryAuditService를 주입한다.
+     */
+    static class SimpleAuditService implements AuditService {
+        static final int DEFAULT_MAX_ENTRIES = 10_000;
+        private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        private final int maxEntries;
+        private final Deque<AuditRecord> auditLog = new ArrayDeque<>();
+
+        SimpleAuditService() {
+            this(DEFAULT_MAX_ENTRIES);
+        }
+
+        SimpleAuditService(int maxEntries) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("maxEntries must be > 0: " + maxEntries);
+            }
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        public void logActivity(String user, String activity) {
+            AuditRecord record = new AuditRecord(System.currentTimeMillis(), user, activity);
+            synchronized (auditLog) {
+                if (auditLog.size() == maxEntries) {
+                    auditLog.removeFirst();
+                }
+                auditLog.addLast(record);
+            }
+        }
+
+        /** 남아 있는 기록을 오래된 순서로 "[시각] 사용자: 활동" 형태로 돌려준다. */
+        List<String> recentEntries() {
+            List<AuditRecord> records;
+            synchronized (auditLog) {
+                records = new ArrayList<>(auditLog);
+            }
+            List<String> entries = new ArrayList<>(records.size());
+            for (AuditRecord record : records) {
+                LocalDateTime loggedAt = LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(record.getTimestamp()), ZoneId.systemDefault());
+                entries.add(String.format("[%s] %s: %s",
+                        loggedAt.format(TIMESTAMP_FORMAT), record.getUser(), record.getActivity()));
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * 운영용 감사 로그. 호출 스레드는 이벤트를 링 버퍼에 넣기만 하고 곧바로 반환한다.
+     * 파일 쓰기는 전용 writer 스레드 하나가 묶어서 처리한다.
+     *
+     * 파일 형식 (세그먼트 파일마다):
+     *   헤더  [magic int][최소 timestamp long][최대 timestamp long] + 여유 공간
+     *   레코드 [length int][timestamp long][user 길이 short][user UTF-8][activity 길이 short][activity UTF-8]
+     *   length == 0 이면 세그먼트의 끝. 다음 레코드가 들어갈 자리가 없으면 새 세그먼트로 넘어간다.
+     */
+    static class BinaryAuditService implements AuditService, AutoCloseable {
+        static final int SEGMENT_MAGIC = 0x41554431; // "AUD1"
+        static final int HEADER_SIZE = 32;
+        static final int MIN_TIMESTAMP_OFFSET = 4;
+        static final int MAX_TIMESTAMP_OFFSET = 12;
+        static final int RECORD_FIXED_SIZE = Integer.BYTES + Long.BYTES + Short.BYTES * 2;
+        static final int MAX_FIELD_CHARS = 16_000; // UTF-8 최악의 경우(3바이트/문자)에도 unsigned short에 들어감
+
+        private static final int MAX_BATCH = 1_024;
+        private static final long IDLE_PARK_NANOS = 100_000;
+
+        private final Path directory;
+        private final int segmentSize;
+        private final int capacity;
+        private final int mask;
+
+        // 링 버퍼: 슬롯마다 필드를 배열로 나눠 보관해 이벤트마다 객체를 만들지 않는다
+        private final long[] timestamps;
+        private final String[] users;
+        private final String[] activities;
+        private final AtomicLongArray publishedSequences;
+        private final AtomicLong claimedSequence = new AtomicLong(-1);
+        private volatile long consumedSequence = -1;
+
+        private final Thread writerThread;
+        private volatile boolean running = true;
+        private volatile Throwable writerFailure;
+
+        private FileChannel segmentChannel;
+        private MappedByteBuffer segment;
+        private int segmentIndex = -1;
+
+        BinaryAuditService(Path directory, int ringCapacity, int segmentSize) throws IOException {
+            if (Integer.bitCount(ringCapacity) != 1) {
+                throw new IllegalArgumentException("ringCapacity must be a power of two: " + ringCapacity);
+            }
+            if (segmentSize < HEADER_SIZE + RECORD_FIXED_SIZE + MAX_FIELD_CHARS * 3 * 2) {
+                throw new IllegalArgumentException("segmentSize too small for a maximum-size record: " + segmentSize);
+            }
+            this.directory = Files.createDirectories(directory);
+            this.segmentSize = segmentSize;
+            this.capacity = ringCapacity;
+            this.mask = ringCapacity - 1;
+            this.timestamps = new long[ringCapacity];
+            this.users = new String[ringCapacity];
+            this.activities = new String[ringCapacity];
+            this.publishedSequences = new AtomicLongArray(ringCapacity);
+            for (int i = 0; i < ringCapacity; i++) {
+                publishedSequences.set(i, -1);
+            }
+
+            // 지워진 세그먼트가 있어도 기존 파일 이름과 겹치지 않도록, 가장 큰 번호 다음부터 쓴다
+            rollSegment(AuditLogReader.lastSegmentIndex(directory) + 1);
+            this.writerThread = new Thread(this::drainLoop, "audit-writer");
+            this.writerThread.setDaemon(true);
+            this.writerThread.start();
+        }
+
+        /**
+         * 이벤트를 링 버퍼에 넣는다. 닫힌 뒤이거나 writer 스레드가 실패했다면 IllegalStateException을 던진다
+         * (조용히 버리거나 빈 자리를 영원히 기다리지 않도록).
+         */
+        @Override
+        public void logActivity(String user, String activity) {
+            validateField(user);
+            validateField(activity);
+            ensureWritable();
+
+            long sequence = claimedSequence.incrementAndGet();
+            // 번호를 받은 뒤에 한 번 더 확인한다. 여기서 열려 있었다면 writer는 종료 전에 이 번호까지 반드시 기다린다.
+            boolean accepted = running;
+            awaitFreeSlot(sequence, accepted);
+
+            int slot = (int) (sequence & mask);
+            if (accepted) {
+                timestamps[slot] = System.currentTimeMillis();
+                users[slot] = user;
+                activities[slot] = activity;
+            }
+            // 거절된 번호도 빈 슬롯으로 발행해야 이 번호를 기다리던 writer가 건너뛰고 진행한다
+            publishedSequences.setRelease(slot, sequence);
+
+            if (!accepted) {
+                throw new IllegalStateException("audit service is closed");
+            }
+        }
+
+        /** 이미 기록 요청된 이벤트를 모두 파일에 쓴 뒤 종료한다. writer가 실패했다면 그 원인을 IOException으로 알린다. */
+        @Override
+        public void close() throws IOException {
+            running = false;
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                segment.force();
+            } finally {
+                segmentChannel.close();
+            }
+            if (writerFailure != null) {
+                throw new IOException("audit writer failed; events after the failure were not written", writerFailure);
+            }
+        }
+
+        private void ensureWritable() {
+            if (writerFailure != null) {
+                throw new IllegalStateException("audit writer failed", writerFailure);
+            }
+            if (!running) {
+                throw new IllegalStateException("audit service is closed");
+            }
+        }
+
+        // 링이 가득 차면 writer가 따라올 때까지 기다린다 (이벤트를 버리지 않음)
+        private void awaitFreeSlot(long sequence, boolean accepted) {
+            while (sequence - consumedSequence > mask) {
+                if (writerFailure != null) {
+                    throw new IllegalStateException("audit writer failed", writerFailure);
+                }
+                // 거절된 번호는 writer가 이미 끝났다면 자리를 기다릴 이유가 없다
+                if (!accepted && !writerThread.isAlive()) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+
+        private static void validateField(String value) {
+            if (value == null) {
+                throw new IllegalArgumentException("audit field must not be null");
+            }
+            if (value.length() > MAX_FIELD_CHARS) {
+                throw new IllegalArgumentException("audit field too long: " + value.length());
+            }
+        }
+
+        private void drainLoop() {
+            try {
+                drainUntilClosed();
+            } catch (RuntimeException | Error e) {
+                // 기다리는 생산자와 close()가 이 실패를 보고 멈출 수 있게 남겨 둔다
+                writerFailure = e;
+                throw e;
+            }
+        }
+
+        private void drainUntilClosed() {
+            long next = consumedSequence + 1;
+            while (running || next <= claimedSequence.get()) {
+                int written = 0;
+                while (written < MAX_BATCH && publishedSequences.getAcquire((int) (next & mask)) == next) {
+                    int slot = (int) (next & mask);
+                    // user가 null이면 close와 경합해 거절된 번호 → 기록하지 않고 건너뛴다
+                    if (users[slot] != null) {
+                        appendRecord(timestamps[slot], users[slot], activities[slot]);
+                    }
+                    users[slot] = null;
+                    activities[slot] = null;
+                    next++;
+                    written++;
+                }
+
+                if (written == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                } else {
+                    consumedSequence = next - 1;
+                }
+            }
+        }
+
+        private void appendRecord(long timestamp, String user, String activity) {
+            byte[] userBytes = user.getBytes(StandardCharsets.UTF_8);
+            byte[] activityBytes = activity.getBytes(StandardCharsets.UTF_8);
+            int recordSize = RECORD_FIXED_SIZE + userBytes.length + activityBytes.length;
+
+            // 종료 표시(length 0)를 쓸 int 하나는 항상 남겨 둔다
+            if (segment.remaining() < recordSize + Integer.BYTES) {
+                segment.putInt(0);
+                rollSegment(segmentIndex + 1);
+            }
+
+            segment.putInt(recordSize)
+                    .putLong(timestamp)
+                    .putShort((short) userBytes.length)
+                    .put(userBytes)
+                    .putShort((short) activityBytes.length)
+                    .put(activityBytes);
+
+            segment.putLong(MIN_TIMESTAMP_OFFSET, Math.min(segment.getLong(MIN_TIMESTAMP_OFFSET), timestamp));
+            segment.putLong(MAX_TIMESTAMP_OFFSET, Math.max(segment.getLong(MAX_TIMESTAMP_OFFSET), timestamp));
+        }
+
+        private void rollSegment(int nextIndex) {
+            try {
+                if (segmentChannel != null) {
+                    segment.force();
+                    segmentChannel.close();
+                }
+                Path file = directory.resolve(AuditLogReader.segmentFileName(nextIndex));
+                segmentChannel = FileChannel.open(file,
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+                segment.putInt(0, SEGMENT_MAGIC);
+                segment.putLong(MIN_TIMESTAMP_OFFSET, Long.MAX_VALUE);
+                segment.putLong(MAX_TIMESTAMP_OFFSET, Long.MIN_VALUE);
+                segment.position(HEADER_SIZE);
+                segmentIndex = nextIndex;
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot roll audit segment " + nextIndex, e);
+            }
+        }
+    }
+
+    static class AuditRecord {
+        private final long timestamp;
+        private final String user;
+        private final String activity;
+
+        AuditRecord(long timestamp, String user, String activity) {
+            this.timestamp = timestamp;
+            this.user = user;
+            this.activity = activity;
+        }
+
+        public long getTimestamp() { return timestamp; }
+        public String getUser() { return user; }
+        public String getActivity() { return activity; }
+
+        @Override
+        public String toString() {
+            return "AuditRecord{" +
+                    "timestamp=" + timestamp +
+                    ", user='" + user + '\'' +
+                    ", activity='" + activity + '\'' +
+                    '}';
+        }
+    }
+
+    /**
+     * BinaryAuditService가 남긴 세그먼트를 읽는 조회 도구.
+     * 세그먼트 헤더의 최소/최대 timestamp로 범위 밖 세그먼트는 열어 보지 않고 건너뛴다.
+     */
+    static class AuditLogReader {
+        private static final String SEGMENT_PREFIX = "audit-";
+        private static final String SEGMENT_SUFFIX = ".seg";
+
+        static String segmentFileName(int index) {
+            return String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+        }
+
+        /** 세그먼트가 하나도 없으면 -1 */
+        static int lastSegmentIndex(Path directory) throws IOException {
+            int lastIndex = -1;
+            for (Path segmentFile : listSegments(directory)) {
+                lastIndex = Math.max(lastIndex, segmentIndexOf(segmentFile));
+            }
+            return lastIndex;
+        }
+
+        static int segmentIndexOf(Path segmentFile) {
+            String fileName = segmentFile.getFileName().toString();
+            String digits = fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length());
+            try {
+                return Integer.parseInt(digits);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not an audit segment file: " + fileName, e);
+            }
+        }
+
+        static List<Path> listSegments(Path directory) throws IOException {
+            List<Path> segments = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                    SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                stream.forEach(segments::add);
+            }
+            Collections.sort(segments);
+            return segments;
+        }
+
+        /** user가 null이면 모든 사용자. 시간 범위는 [fromMillis, toMillis] 양 끝 포함. */
+        static List<AuditRecord> query(Path directory, String user, long fromMillis, long toMillis) throws IOException {
+            byte[] userFilter = user == null ? null : user.getBytes(StandardCharsets.UTF_8);
+            List<AuditRecord> matches = new ArrayList<>();
+
+            for (Path segmentFile : listSegments(directory)) {
+                try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+                    MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    if (overlaps(segment, fromMillis, toMillis)) {
+                        scanSegment(segment, userFilter, fromMillis, toMillis, matches);
+                    }
+                }
+            }
+            return matches;
+        }
+
+        private static boolean overlaps(MappedByteBuffer segment, long fromMillis, long toMillis) {
+            if (segment.getInt(0) != BinaryAuditService.SEGMENT_MAGIC) {
+                throw new IllegalStateException("not an audit segment");
+            }
+            return segment.getLong(BinaryAuditService.MAX_TIMESTAMP_OFFSET) >= fromMillis
+                    && segment.getLong(BinaryAuditService.MIN_TIMESTAMP_OFFSET) <= toMillis;
+        }
+
+        private static void scanSegment(MappedByteBuffer segment, byte[] userFilter,
+                                        long fromMillis, long toMillis, List<AuditRecord> matches) {
+            int position = BinaryAuditService.HEADER_SIZE;
+            while (position + Integer.BYTES <= segment.limit()) {
+                int recordSize = segment.getInt(position);
+                if (recordSize == 0) {
+                    return;
+                }
+
+                long timestamp = segment.getLong(position + Integer.BYTES);
+                int userOffset = position + Integer.BYTES + Long.BYTES + Short.BYTES;
+                int userLength = Short.toUnsignedInt(segment.getShort(userOffset - Short.BYTES));
+
+                // 사용자/시간 조건을 먼저 바이트 단위로 확인하고, 일치할 때만 문자열을 만든다
+                if (timestamp >= fromMillis && timestamp <= toMillis
+                        && (userFilter == null || bytesEqual(segment, userOffset, userLength, userFilter))) {
+                    int activityOffset = userOffset + userLength + Short.BYTES;
+                    int activityLength = Short.toUnsignedInt(segment.getShort(activityOffset - Short.BYTES));
+                    matches.add(new AuditRecord(timestamp,
+                            readString(segment, userOffset, userLength),
+                            readString(segment, activityOffset, activityLength)));
+                }
+                position += recordSize;
+            }
+        }
+
+        private static boolean bytesEqual(MappedByteBuffer segment, int offset, int length, byte[] expected) {
+            if (length != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (segment.get(offset + i) != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String readString(MappedByteBuffer segment, int offset, int length) {
+            byte[] bytes = new byte[length];
+            segment.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    static class SimpleSessionManager implements SessionManager {
+        private final Set<String> activeSessions = new HashSet<>();
+
+        @Override
+        public void createSession(String userName) {
+            activeSessions.add(userName);
+        }
+
+        @Override
+        public void invalidateSession(String userName) {
+            activeSessions.remove(userName);
+        }
+
+        @Override
+        public boolean isSessionValid(String userName) {
+            return activeSessions.contains(userName);
+        }
+    }
+
+    /**
+     * 자격 증명 검증 결과 캐시.
+     *
+     * - 키는 (사용자, 비밀번호)의 SHA-256 해시라서 평문 비밀번호를 메모리에 남기지 않는다.
+     * - 실패 결과도 캐시한다. 같은 조합을 반복 대입하는 공격이 매번 해시 검증 비용을 쓰지 않게 하기 위함.
+     * - 사용자별 세대(generation) 번호를 올리는 것으로 그 사용자의 캐시 항목을 한 번에 무효화한다.
+     * - TTL이 모두 같으므로 넣은 순서가 곧 만료 순서다. 넣은 순서대로 키를 큐에 두고
+     *   앞에서부터 만료된 것, 상한을 넘은 것만 지운다 (캐시 미스 한 번에 전체를 훑지 않는다).
+     */
+    static class CredentialVerificationCache {
+        private final long ttlMillis;
+        private final int maxEntries;
+        private final LongSupplier clockMillis;
+        private final Map<CacheKey, CachedVerification> verifications = new ConcurrentHashMap<>();
+        private final Map<String, Long> generationsByUser = new ConcurrentHashMap<>();
+        private final Queue<CacheKey> keysInInsertionOrder = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queuedKeyCount = new AtomicInteger();
+
+        CredentialVerificationCache(long ttlMillis, int maxEntries, LongSupplier clockMillis) {
+            if (ttlMillis <= 0 || maxEntries <= 0) {
+                throw new IllegalArgumentException("ttlMillis and maxEntries must be > 0");
+            }
+            this.ttlMillis = ttlMillis;
+            this.maxEntries = maxEntries;
+            this.clockMillis = clockMillis;
+        }
+
+        interface Verifier {
+            boolean verify(String userName, String password);
+        }
+
+        boolean verify(String userName, String password, Verifier verifier) {
+            if (userName == null || password == null) {
+                return verifier.verify(userName, password);
+            }
+
+            long now = clockMillis.getAsLong();
+            long generation = generationsByUser.getOrDefault(userName, 0L);
+            CacheKey key = CacheKey.of(userName, password);
+
+            CachedVerification cached = verifications.get(key);
+            if (cached != null && cached.generation == generation && now < cached.expiresAt) {
+                return cached.valid;
+            }
+
+            boolean valid = verifier.verify(userName, password);
+            store(new CachedVerification(key, valid, generation, now + ttlMillis), now);
+            return valid;
+        }
+
+        void invalidateUser(String userName) {
+            generationsByUser.merge(userName, 1L, Long::sum);
+        }
+
+        int size() {
+            return verifications.size();
+        }
+
+        private void store(CachedVerification verification, long now) {
+            verifications.put(verification.key, verification);
+            keysInInsertionOrder.add(verification.key);
+            queuedKeyCount.incrementAndGet();
+            evictOldest(now);
+        }
+
+        // 큐 앞쪽만 본다: 만료된 항목은 모두, 만료 전이라도 상한을 넘은 만큼은 가장 오래된 것부터 지운다.
+        // 같은 키를 다시 넣으면 큐에 옛 자리가 남는데, 맵의 값이 이미 바뀌었으므로 그 자리는 버리기만 한다.
+        // 꺼낼 때마다 한 칸씩 줄어드므로 store 한 번의 비용은 평균 O(1)이다.
+        private void evictOldest(long now) {
+            synchronized (keysInInsertionOrder) {
+                CacheKey oldest;
+                while ((oldest = keysInInsertionOrder.peek()) != null) {
+                    CachedVerification entry = verifications.get(oldest);
+                    boolean queuedForThisEntry = entry != null && entry.key == oldest;
+                    if (queuedForThisEntry && now < entry.expiresAt && queuedKeyCount.get() <= maxEntries) {
+                        return;
+                    }
+                    keysInInsertionOrder.poll();
+                    queuedKeyCount.decrementAndGet();
+                    if (queuedForThisEntry) {
+                        verifications.remove(oldest, entry);
+                    }
+                }
+            }
+        }
+
+        private static final class CachedVerification {
+            private final CacheKey key; // 큐에 들어간 키 객체와 같은 인스턴스 (옛 큐 자리와 구분하는 데 쓴다)
+            private final boolean valid;
+            private final long generation;
+            private final long expiresAt;
+
+            private CachedVerification(CacheKey key, boolean valid, long generation, long expiresAt) {
+                this.key = key;
+                this.valid = valid;
+                this.generation = generation;
+                this.expiresAt = expiresAt;
+            }
+        }
+
+        private static final class CacheKey {
+            private final byte[] digest;
+            private final int hash;
+
+            private CacheKey(byte[] digest) {
+                this.digest = digest;
+                this.hash = Arrays.hashCode(digest);
+            }
+
+            static CacheKey of(String userName, String password) {
+                try {
+                    MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+                    sha256.update(userName.getBytes(StandardCharsets.UTF_8));
+                    sha256.update((byte) 0); // 구분자: ("ab","c")와 ("a","bc")가 같은 키가 되지 않도록
+                    sha256.update(password.getBytes(StandardCharsets.UTF_8));
+                    return new CacheKey(sha256.digest());
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException("SHA-256 is required by every JVM", e);
+                }
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) return true;
+                if (!(o instanceof CacheKey)) return false;
+                return Arrays.equals(digest, ((CacheKey) o).digest);
+            }
+
+            @Override
+            public int hashCode() {
+                return hash;
+            }
+        }
+    }
+
+    /**
+     * 로그인 시도 제한. 사용자 단위와 출처(IP 등) 단위로 실패를 세고,
+     * 허용 횟수를 넘으면 실패할 때마다 잠금 시간을 두 배로 늘린다(최대 maxLockoutMillis).
+     * 잠긴 동안에는 비밀번호 검증 자체를 하지 않으므로 공격이 CPU를 점유하지 못한다.
+     *
+     * 마지막 실패 후 maxLockoutMillis 동안 조용하고 잠금도 풀린 기록은 만료된다.
+     * 만료된 기록은 조회할 때 지우고, 실패 SWEEP_INTERVAL번마다 한 번씩 전체를 훑어 지운다
+     * → 다시 오지 않는 출처/사용자 이름이 쌓여 메모리가 끝없이 늘지 않는다.
+     */
+    static class LoginThrottler {
+        private static final int SWEEP_INTERVAL = 1_024;
+
+        private final int maxFailuresPerUser;
+        private final int maxFailuresPerSource;
+        private final long baseLockoutMillis;
+        private final long maxLockoutMillis;
+        private final LongSupplier clockMillis;
+        private final Map<String, AttemptState> attemptsByUser = new ConcurrentHashMap<>();
+        private final Map<String, AttemptState> attemptsBySource = new ConcurrentHashMap<>();
+        private final AtomicInteger failuresSinceSweep = new AtomicInteger();
+
+        LoginThrottler(int maxFailuresPerUser, int maxFailuresPerSource,
+                       long baseLockoutMillis, long maxLockoutMillis, LongSupplier clockMillis) {
+            if (maxFailuresPerUser <= 0 || maxFailuresPerSource <= 0) {
+                throw new IllegalArgumentException("failure limits must be > 0");
+            }
+            if (baseLockoutMillis <= 0 || maxLockoutMillis < baseLockoutMillis) {
+                throw new IllegalArgumentException("lockouts must satisfy 0 < base <= max");
+            }
+            this.maxFailuresPerUser = maxFailuresPerUser;
+            this.maxFailuresPerSource = maxFailuresPerSource;
+            this.baseLockoutMillis = baseLockoutMillis;
+            this.maxLockoutMillis = maxLockoutMillis;
+            this.clockMillis = clockMillis;
+        }
+
+        void checkAllowed(String userName, String sourceAddress) throws LoginThrottledException {
+            long now = clockMillis.getAsLong();
+            long retryAfter = Math.max(remainingLockout(attemptsByUser, userName, now),
+                    remainingLockout(attemptsBySource, sourceAddress, now));
+            if (retryAfter > 0) {
+                throw new LoginThrottledException("Too many failed login attempts, retry after "
+                        + retryAfter + "ms", retryAfter);
+            }
+        }
+
+        void recordFailure(String userName, String sourceAddress) {
+            long now = clockMillis.getAsLong();
+            recordFailure(attemptsByUser, userName, maxFailuresPerUser, now);
+            recordFailure(attemptsBySource, sourceAddress, maxFailuresPerSource, now);
+
+            if (failuresSinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+                failuresSinceSweep.set(0);
+                sweepExpired(now);
+            }
+        }
+
+        /**
+         * 사용자 기록은 지우고, 출처 기록은 절반으로 줄인다.
+         * 출처를 통째로 지우지 않는 이유: 유효한 계정 하나를 가진 공격자가 성공 한 번으로
+         * 다른 계정들에 대한 대입 시도 횟수를 다시 0으로 만들 수 없게 하기 위함.
+         */
+        void recordSuccess(String userName, String sourceAddress) {
+            if (userName != null) {
+                attemptsByUser.remove(userName);
+            }
+            if (sourceAddress != null) {
+                attemptsBySource.computeIfPresent(sourceAddress, (ignored, state) -> state.forgiveHalf());
+            }
+        }
+
+        private long remainingLockout(Map<String, AttemptState> attempts, String key, long now) {
+            if (key == null) return 0;
+            AttemptState state = attempts.get(key);
+            if (state == null) return 0;
+            if (isExpired(state, now)) {
+                attempts.remove(key, state);
+                return 0;
+            }
+            return Math.max(0, state.lockedUntil - now);
+        }
+
+        private void recordFailure(Map<String, AttemptState> attempts, String key, int maxFailures, long now) {
+            if (key == null) return;
+            attempts.compute(key, (ignored, state) -> {
+                int previousFailures = state == null || isExpired(state, now) ? 0 : state.failures;
+                int failures = previousFailures + 1;
+                long lockedUntil = failures > maxFailures ? now + lockoutFor(failures - maxFailures) : 0;
+                return new AttemptState(failures, lockedUntil, now);
+            });
+        }
+
+        private void sweepExpired(long now) {
+            attemptsByUser.values().removeIf(state -> isExpired(state, now));
+            attemptsBySource.values().removeIf(state -> isExpired(state, now));
+        }
+
+        private boolean isExpired(AttemptState state, long now) {
+            return now >= state.lockedUntil && now - state.lastFailureAt >= maxLockoutMillis;
+        }
+
+        private long lockoutFor(int excessFailures) {
+            int doublings = Math.min(excessFailures - 1, 30);
+            return Math.min(maxLockoutMillis, baseLockoutMillis << doublings);
+        }
+
+        private static final class AttemptState {
+            private final int failures;
+            private final long lockedUntil;
+            private final long lastFailureAt;
+
+            private AttemptState(int failures, long lockedUntil, long lastFailureAt) {
+                this.failures = failures;
+                this.lockedUntil = lockedUntil;
+                this.lastFailureAt = lastFailureAt;
+            }
+
+            private AttemptState forgiveHalf() {
+                return failures <= 1 ? null : new AttemptState(failures / 2, lockedUntil, lastFailureAt);
+            }
+        }
+    }
+
+    /**
+     * 만료 시간이 있는 동시성 세션 관리자.
+     *
+     * - isSessionValid는 ConcurrentHashMap 조회 + volatile 읽기뿐이라 락 없이 O(1)이다.
+     *   만료 여부도 세션의 만료 시각으로 직접 판단하므로, 정리가 조금 늦어져도 결과는 정확하다.
+     * - 만료된 세션의 정리는 계층형 타이밍 휠이 맡는다. 전체 세션을 주기적으로 훑지 않고
+     *   이번 tick에 도래한 슬롯만 처리하므로 세션 수와 무관하게 tick당 비용이 작다.
+     * - 접근 시각 갱신(recordAccess)은 만료 시각만 늘리고 휠에서 옮기지 않는다.
+     *   슬롯이 도래했을 때 아직 만료 전이면 새 만료 시각으로 다시 넣는다(지연 재배치).
+     */
+    static class ExpiringSessionManager implements SessionManager, AutoCloseable {
+        private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+        private final TimingWheel<Session> expiryWheel;
+        private final LongSupplier clockMillis;
+        private final long idleTimeoutMillis;
+        private final long absoluteTimeoutMillis;
+        private final ScheduledExecutorService expiryTicker;
+
+        ExpiringSessionManager(long idleTimeoutMillis, long absoluteTimeoutMillis) {
+            this(idleTimeoutMillis, absoluteTimeoutMillis, 1_000, () -> System.nanoTime() / 1_000_000, true);
+        }
+
+        // 테스트에서 시계를 주입하고 tick을 직접 돌릴 수 있도록 분리한 생성자
+        ExpiringSessionManager(long idleTimeoutMillis, long absoluteTimeoutMillis, long tickMillis,
+                               LongSupplier clockMillis, boolean startTicker) {
+            if (idleTimeoutMillis <= 0 || absoluteTimeoutMillis < idleTimeoutMillis) {
+                throw new IllegalArgumentException("timeouts must satisfy 0 < idle <= absolute");
+            }
+            this.idleTimeoutMillis = idleTimeoutMillis;
+            this.absoluteTimeoutMillis = absoluteTimeoutMillis;
+            this.clockMillis = clockMillis;
+            this.expiryWheel = new TimingWheel<>(tickMillis, clockMillis.getAsLong());
+
+            if (startTicker) {
+                this.expiryTicker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "session-expiry");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                this.expiryTicker.scheduleAtFixedRate(this::expireDueSessions, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+            } else {
+                this.expiryTicker = null;
+            }
+        }
+
+        @Override
+        public void createSession(String userName) {
+            long now = clockMillis.getAsLong();
+            Session session = new Session(userName, now, now + absoluteTimeoutMillis, now + idleTimeoutMillis);
+            sessions.put(userName, session);
+            expiryWheel.schedule(session, session.expiresAt());
+        }
+
+        @Override
+        public void invalidateSession(String userName) {
+            // 휠에 남은 항목은 슬롯이 도래했을 때 맵에 없으므로 그냥 버려진다
+            sessions.remove(userName);
+        }
+
+        @Override
+        public boolean isSessionValid(String userName) {
+            Session session = sessions.get(userName);
+            return session != null && clockMillis.getAsLong() < session.expiresAt();
+        }
+
+        /** 사용자의 요청이 들어왔음을 기록해 유휴 만료 시각을 늦춘다. */
+        public void recordAccess(String userName) {
+            Session session = sessions.get(userName);
+            if (session != null) {
+                session.lastAccessedAt = clockMillis.getAsLong();
+            }
+        }
+
+        public int activeSessionCount() {
+            return sessions.size();
+        }
+
+        /** 지금까지 도래한 휠 슬롯을 처리한다. 기본 생성자에서는 전용 스레드가 tick마다 호출한다. */
+        public void expireDueSessions() {
+            long now = clockMillis.getAsLong();
+            expiryWheel.advanceTo(now, session -> {
+                if (sessions.get(session.userName) != session) {
+                    return; // 이미 무효화되었거나 재로그인으로 교체된 세션
+                }
+                if (now >= session.expiresAt()) {
+                    sessions.remove(session.userName, session);
+                } else {
+                    expiryWheel.schedule(session, session.expiresAt());
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            if (expiryTicker != null) {
+                expiryTicker.shutdownNow();
+            }
+        }
+
+        private final class Session {
+            private final String userName;
+            private final long createdAt;
+            private final long absoluteDeadline;
+            private volatile long lastAccessedAt;
+
+            private Session(String userName, long createdAt, long absoluteDeadline, long idleDeadline) {
+                this.userName = userName;
+                this.createdAt = createdAt;
+                this.absoluteDeadline = absoluteDeadline;
+                this.lastAccessedAt = idleDeadline - idleTimeoutMillis;
+            }
+
+            private long expiresAt() {
+                return Math.min(absoluteDeadline, lastAccessedAt + idleTimeoutMillis);
+            }
+        }
+    }
+
+    /**
+     * 3단계 계층형 타이밍 휠 (256 × 64 × 64 슬롯).
+     * tick이 1초라면 1단계는 약 4분, 2단계는 약 4.5시간, 3단계는 약 12일까지 표현한다.
+     * 그보다 먼 항목은 가장 먼 슬롯에 두었다가 도래했을 때 다시 배치한다.
+     *
+     * schedule은 여러 스레드에서 락 없이 호출할 수 있고, advanceTo는 한 번에 한 스레드만 실행한다.
+     * schedule 도중 tick이 넘어가 이미 지난 슬롯에 들어간 항목은 한 바퀴 늦게 처리될 수 있다.
+     */
+    static class TimingWheel<T> {
+        private static final int LEVEL0_BITS = 8;
+        private static final int UPPER_LEVEL_BITS = 6;
+        private static final int LEVEL0_SLOTS = 1 << LEVEL0_BITS;
+        private static final int UPPER_LEVEL_SLOTS = 1 << UPPER_LEVEL_BITS;
+        private static final long LEVEL1_SPAN = (long) LEVEL0_SLOTS << UPPER_LEVEL_BITS;
+        private static final long LEVEL2_SPAN = LEVEL1_SPAN << UPPER_LEVEL_BITS;
+
+        private final long tickMillis;
+        private final long originMillis;
+        private final List<Queue<Timer<T>>> level0 = createSlots(LEVEL0_SLOTS);
+        private final List<Queue<Timer<T>>> level1 = createSlots(UPPER_LEVEL_SLOTS);
+        private final List<Queue<Timer<T>>> level2 = createSlots(UPPER_LEVEL_SLOTS);
+        private volatile long currentTick;
+
+        TimingWheel(long tickMillis, long originMillis) {
+            if (tickMillis <= 0) {
+                throw new IllegalArgumentException("tickMillis must be > 0: " + tickMillis);
+            }
+            this.tickMillis = tickMillis;
+            this.originMillis = originMillis;
+        }
+
+        void schedule(T item, long deadlineMillis) {
+            long deadlineTick = Math.max(0, Math.floorDiv(deadlineMillis - originMillis + tickMillis - 1, tickMillis));
+            place(new Timer<>(item, deadlineTick));
+        }
+
+        synchronized void advanceTo(long nowMillis, Consumer<T> onExpired) {
+            long targetTick = Math.floorDiv(nowMillis - originMillis, tickMillis);
+            while (currentTick < targetTick) {
+                long tick = currentTick + 1;
+                currentTick = tick;
+                if ((tick & (LEVEL1_SPAN - 1)) == 0) {
+                    cascade(level2.get((int) ((tick >>> (LEVEL0_BITS + UPPER_LEVEL_BITS)) & (UPPER_LEVEL_SLOTS - 1))));
+                }
+                if ((tick & (LEVEL0_SLOTS - 1)) == 0) {
+                    cascade(level1.get((int) ((tick >>> LEVEL0_BITS) & (UPPER_LEVEL_SLOTS - 1))));
+                }
+
+                Queue<Timer<T>> due = level0.get((int) (tick & (LEVEL0_SLOTS - 1)));
+                for (Timer<T> timer = due.poll(); timer != null; timer = due.poll()) {
+                    onExpired.accept(timer.item);
+                }
+            }
+        }
+
+        private void place(Timer<T> timer) {
+            long now = currentTick;
+            long deadline = Math.max(timer.deadlineTick, now + 1);
+            long delta = deadline - now;
+
+            if (delta < LEVEL0_SLOTS) {
+                level0.get((int) (deadline & (LEVEL0_SLOTS - 1))).add(timer);
+            } else if (delta < LEVEL1_SPAN) {
+                level1.get((int) ((deadline >>> LEVEL0_BITS) & (UPPER_LEVEL_SLOTS - 1))).add(timer);
+            } else {
+                long capped = Math.min(deadline, now + LEVEL2_SPAN - LEVEL1_SPAN);
+                level2.get((int) ((capped >>> (LEVEL0_BITS + UPPER_LEVEL_BITS)) & (UPPER_LEVEL_SLOTS - 1))).add(timer);
+            }
+        }
+
+        private void cascade(Queue<Timer<T>> slot) {
+            for (Timer<T> timer = slot.poll(); timer != null; timer = slot.poll()) {
+                place(timer);
+            }
+        }
+
+        private static <T> List<Queue<Timer<T>>> createSlots(int count) {
+            List<Queue<Timer<T>>> slots = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                slots.add(new ConcurrentLinkedQueue<>());
+            }
+            return slots;
+        }
+
+        private static final class Timer<T> {
+            private final T item;
+            private final long deadlineTick;
+
+            private Timer(T item, long deadlineTick) {
+                this.item = item;
+                this.deadlineTick = deadlineTick;
+            }
+        }
+    }
+
+    // ========== Employee 클래스 ==========
+
+    static class Employee {
+        private static final byte UNRECOGNIZED_STATUS = -1;
+
+        private String id;
+        private String name;
+        private int age;
+        private String department;
+        private volatile double salary; // 급여 인덱스를 갱신하는 저장소 스레드가 락 없이 읽는다
+        private String email;
+        private String phone;
+        private String address;
+        private LocalDateTime hireDate;
+        private int performanceRating;
+        private String employeeType;
+        private byte statusCode;          // EmployeeStatus의 code(), 알 수 없는 값이면 UNRECOGNIZED_STATUS
+        private String unrecognizedStatus; // EmployeeStatus에 없는 문자열이 들어온 경우에만 사용
+        private int yearsOfExperience;
+        private BenefitsCalculator benefitsCalculator;
+        private volatile SalaryChangeListener salaryChangeListener;
+
+        // 생성자
+        public Employee(String id, String name, int age, String department, double salary,
+                        String employeeType, BenefitsCalculator benefitsCalculator) {
+            this.id = id;
+            this.name = name;
+            this.age = age;
+            this.department = department;
+            this.salary = salary;
+            this.employeeType = employeeType;
+            this.benefitsCalculator = benefitsCalculator;
+            this.statusCode = EmployeeStatus.INACTIVE.code();
+            this.hireDate = LocalDateTime.now();
+        }
+
+        // Getters and Setters
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public String getDepartment() {
+            return department;
+        }
+
+        public void setDepartment(String department) {
+            this.department = department;
+        }
+
+        public double getSalary() {
+            return salary;
+        }
+
+        public void setSalary(double salary) {
+            double previousSalary = this.salary;
+            this.salary = salary;
+            SalaryChangeListener listener = salaryChangeListener; // 저장소가 다른 스레드에서 떼어 낼 수 있으므로 한 번만 읽는다
+            if (listener != null && Double.compare(previousSalary, salary) != 0) {
+                listener.salaryChanged(this, previousSalary);
+            }
+        }
+
+        // 저장소가 급여 인덱스를 유지하기 위해 등록한다. 한 번에 한 저장소만 등록할 수 있다.
+        void setSalaryChangeListener(SalaryChangeListener salaryChangeListener) {
+            this.salaryChangeListener = salaryChangeListener;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+
+        public String getPhone() {
+            return phone;
+        }
+
+        public void setPhone(String phone) {
+            this.phone = phone;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public void setAddress(String address) {
+            this.address = address;
         }
 
         public LocalDateTime getHireDate() {
@@ -816,11 +3890,30 @@ public class Functions {
         }
 
         public String getStatus() {
-            return status;
+            if (statusCode == UNRECOGNIZED_STATUS) {
+                return unrecognizedStatus;
+            }
+            return EmployeeStatus.fromCode(statusCode).name();
         }
 
         public void setStatus(String status) {
-            this.status = status;
+            EmployeeStatus knownStatus = EmployeeStatus.fromName(status);
+            if (knownStatus != null) {
+                setStatus(knownStatus);
+                return;
+            }
+            this.statusCode = UNRECOGNIZED_STATUS;
+            this.unrecognizedStatus = status;
+        }
+
+        public void setStatus(EmployeeStatus status) {
+            this.statusCode = status.code();
+            this.unrecognizedStatus = null;
+        }
+
+        /** 현재 상태, EmployeeStatus에 없는 값이 설정되어 있으면 null */
+        public EmployeeStatus getEmployeeStatus() {
+            return statusCode == UNRECOGNIZED_STATUS ? null : EmployeeStatus.fromCode(statusCode);
         }
 
         public int getYearsOfExperience() {
@@ -845,7 +3938,7 @@ public class Functions {
                     "id='" + id + '\'' +
                     ", name='" + name + '\'' +
                     ", department='" + department + '\'' +
-                    ", status='" + status + '\'' +
+                    ", status='" + getStatus() + '\'' +
                     '}';
         }
     }
@@ -1,12 +1,46 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.HashMap;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.Queue;
+import java.util.Random;
 import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Period;
 import java.util.stream.Collectors;
@@ -95,6 +129,8 @@ public class MeaningfulName {
         private Date generationTimestamp;
         private Date modificationTimestamp;
         private final String recordId = "102";
+        private String email;
+        private boolean active = true;
 
         // Constructor 추가
         public Customer() {
@@ -107,6 +143,19 @@ public class MeaningfulName {
         public Date getModificationTimestamp() { return modificationTimestamp; }
         public String getRecordId() { return recordId; }
 
+        public String getEmail() { return email; }
+        public boolean isActive() { return active; }
+
+        public void setEmail(String email) {
+            this.email = email;
+            updateRecord();
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+            updateRecord();
+        }
+
         // Business method 추가
         public void updateRecord() {
             this.modificationTimestamp = new Date();
@@ -263,38 +312,53 @@ public class MeaningfulName {
     }
 
     // 클래스 이름은 명사나 명사구를 사용
+    // 계좌 ID로 색인해 두어 조회/삭제/중복 확인이 계좌 수와 무관하게 O(1)이다. 여러 스레드에서 동시에 써도 된다.
     class AccountManager {
-        private List<Account> managedAccounts;
+        private final Map<String, Account> managedAccountsById;
 
         // Constructor 추가
         public AccountManager() {
-            this.managedAccounts = new ArrayList<>();
+            this.managedAccountsById = new ConcurrentHashMap<>();
+        }
+
+        // 대량 적재 전에 예상 계좌 수를 알면 재해싱 없이 한 번에 자리를 잡는다
+        public AccountManager(int expectedAccountCount) {
+            this.managedAccountsById = new ConcurrentHashMap<>(expectedAccountCount);
         }
 
         public void addAccount(Account account) {
-            if (account != null && !managedAccounts.contains(account)) {
-                managedAccounts.add(account);
+            if (account != null) {
+                managedAccountsById.putIfAbsent(account.getId(), account);
+            }
+        }
+
+        // 이미 있는 ID는 건너뛰고, 새로 추가된 계좌 수를 반환
+        public int addAccounts(Collection<Account> accounts) {
+            int addedCount = 0;
+            for (Account account : accounts) {
+                if (account != null && managedAccountsById.putIfAbsent(account.getId(), account) == null) {
+                    addedCount++;
+                }
             }
+            return addedCount;
         }
 
         public Account findAccountById(String accountId) {
-            return managedAccounts.stream()
-                    .filter(account -> account.getId().equals(accountId))
-                    .findFirst()
-                    .orElse(null);
+            return accountId == null ? null : managedAccountsById.get(accountId);
         }
 
         // 추가 메서드들
         public boolean removeAccount(String accountId) {
-            return managedAccounts.removeIf(account -> account.getId().equals(accountId));
+            return accountId != null && managedAccountsById.remove(accountId) != null;
         }
 
+        // 순서는 보장하지 않는다
         public List<Account> getAllAccounts() {
-            return new ArrayList<>(managedAccounts);
+            return new ArrayList<>(managedAccountsById.values());
         }
 
         public int getAccountCount() {
-            return managedAccounts.size();
+            return managedAccountsById.size();
         }
     }
 
@@ -478,38 +542,52 @@ public class MeaningfulName {
     }
 
     // 도메인별 전용 언어 사용
+    // 잔액은 최소 화폐 단위(원/센트)의 long으로 보관해 double 반올림 오차가 쌓이지 않게 한다.
+    // 입출금과 이체는 계좌 객체의 락으로 보호되며, 이체는 계좌 번호 순서로 락을 잡아 교착을 막는다.
     class BankAccount {
-        private double balance;
+        private long balanceInMinorUnits;
         private String accountNumber;
         private AccountType accountType;
 
         // Constructor 추가
         public BankAccount(String accountNumber, AccountType accountType) {
-            this.accountNumber = accountNumber;
+            this.accountNumber = Objects.requireNonNull(accountNumber, "accountNumber");
             this.accountType = accountType;
-            this.balance = 0.0;
+            this.balanceInMinorUnits = 0;
         }
 
         public void deposit(double amount) {
-            if (amount > 0) {
-                balance += amount;
+            depositMinorUnits(toMinorUnits(amount));
+        }
+
+        public synchronized void depositMinorUnits(long amountInMinorUnits) {
+            if (amountInMinorUnits > 0) {
+                balanceInMinorUnits = Math.addExact(balanceInMinorUnits, amountInMinorUnits);
             }
         }
 
         public boolean withdraw(double amount) {
-            if (canWithdraw(amount)) {
-                balance -= amount;
+            return withdrawMinorUnits(toMinorUnits(amount));
+        }
+
+        public synchronized boolean withdrawMinorUnits(long amountInMinorUnits) {
+            if (canWithdraw(amountInMinorUnits)) {
+                balanceInMinorUnits -= amountInMinorUnits;
                 return true;
             }
             return false;
         }
 
-        private boolean canWithdraw(double amount) {
-            return balance >= amount && amount > 0;
+        private boolean canWithdraw(long amountInMinorUnits) {
+            return balanceInMinorUnits >= amountInMinorUnits && amountInMinorUnits > 0;
         }
 
         public double getAvailableBalance() {
-            return balance;
+            return getAvailableBalanceInMinorUnits() / (double) MINOR_UNITS_PER_MAJOR_UNIT;
+        }
+
+        public synchronized long getAvailableBalanceInMinorUnits() {
+            return balanceInMinorUnits;
         }
 
         // 추가 메서드들
@@ -517,12 +595,287 @@ public class MeaningfulName {
         public AccountType getAccountType() { return accountType; }
 
         public boolean transfer(BankAccount targetAccount, double amount) {
-            if (withdraw(amount)) {
-                targetAccount.deposit(amount);
-                return true;
+            return transferMinorUnits(targetAccount, toMinorUnits(amount));
+        }
+
+        public boolean transferMinorUnits(BankAccount targetAccount, long amountInMinorUnits) {
+            if (targetAccount == this) {
+                return canWithdrawNow(amountInMinorUnits);
+            }
+            int order = lockOrder(this, targetAccount);
+            if (order == 0) {
+                // 순서를 정할 수 없는 드문 경우에는 전역 락으로 한 번에 한 이체만 진행
+                synchronized (TRANSFER_TIE_LOCK) {
+                    return transferInLockOrder(this, targetAccount, amountInMinorUnits);
+                }
+            }
+            return order < 0
+                    ? transferInLockOrder(this, targetAccount, amountInMinorUnits)
+                    : transferInLockOrder(targetAccount, this, amountInMinorUnits);
+        }
+
+        private boolean transferInLockOrder(BankAccount first, BankAccount second, long amountInMinorUnits) {
+            synchronized (first) {
+                synchronized (second) {
+                    return moveLocked(this, first == this ? second : first, amountInMinorUnits);
+                }
             }
+        }
+
+        private synchronized boolean canWithdrawNow(long amountInMinorUnits) {
+            return canWithdraw(amountInMinorUnits);
+        }
+    }
+
+    static final long MINOR_UNITS_PER_MAJOR_UNIT = 100;
+    private static final Object TRANSFER_TIE_LOCK = new Object();
+
+    // 두 계좌의 락을 모두 잡은 상태에서 호출해야 한다
+    private static boolean moveLocked(BankAccount source, BankAccount target, long amountInMinorUnits) {
+        if (!source.withdrawMinorUnits(amountInMinorUnits)) {
             return false;
         }
+        target.depositMinorUnits(amountInMinorUnits);
+        return true;
+    }
+
+    static long toMinorUnits(double amount) {
+        return Math.round(amount * MINOR_UNITS_PER_MAJOR_UNIT);
+    }
+
+    // 모든 스레드가 같은 순서로 락을 잡도록 계좌 번호로 정렬한다. 번호가 같은 서로 다른 객체는 identity로 구분하고,
+    // 그래도 같으면 0을 반환한다.
+    static int lockOrder(BankAccount left, BankAccount right) {
+        int byNumber = left.getAccountNumber().compareTo(right.getAccountNumber());
+        if (byNumber != 0) {
+            return byNumber;
+        }
+        return Integer.compare(System.identityHashCode(left), System.identityHashCode(right));
+    }
+
+    // 대량 이체. 같은 계좌 쌍끼리 묶어 락을 한 번만 잡고, 서로 다른 쌍은 병렬로 처리한다.
+    static class BankTransferEngine {
+
+        static final class Transfer {
+            private final BankAccount source;
+            private final BankAccount target;
+            private final long amountInMinorUnits;
+
+            Transfer(BankAccount source, BankAccount target, long amountInMinorUnits) {
+                if (source == null || target == null) {
+                    throw new IllegalArgumentException("Transfer accounts cannot be null");
+                }
+                if (amountInMinorUnits <= 0) {
+                    throw new IllegalArgumentException("Transfer amount must be positive");
+                }
+                this.source = source;
+                this.target = target;
+                this.amountInMinorUnits = amountInMinorUnits;
+            }
+
+            public BankAccount getSource() { return source; }
+            public BankAccount getTarget() { return target; }
+            public long getAmountInMinorUnits() { return amountInMinorUnits; }
+
+            private BankAccount firstLock() { return lockOrder(source, target) <= 0 ? source : target; }
+            private BankAccount secondLock() { return firstLock() == source ? target : source; }
+        }
+
+        static final class BatchTransferResult {
+            private final boolean[] succeeded;
+            private final int succeededCount;
+
+            private BatchTransferResult(boolean[] succeeded) {
+                this.succeeded = succeeded;
+                int count = 0;
+                for (boolean transferSucceeded : succeeded) {
+                    if (transferSucceeded) count++;
+                }
+                this.succeededCount = count;
+            }
+
+            public boolean isSucceeded(int transferIndex) { return succeeded[transferIndex]; }
+            public int getSucceededCount() { return succeededCount; }
+            public int getFailedCount() { return succeeded.length - succeededCount; }
+        }
+
+        /**
+         * 이체 목록을 (락 순서상 앞 계좌, 뒤 계좌) 쌍으로 묶는다. 쌍은 계좌 객체 자체로 구분하므로
+         * 락 순서가 같게 나오는 서로 다른 계좌 쌍이 한 묶음으로 섞이지 않는다.
+         * 같은 쌍 안에서는 입력 순서대로 적용하지만, 서로 다른 쌍 사이의 적용 순서는 보장하지 않는다.
+         * 결과의 인덱스는 입력 목록의 인덱스와 같다.
+         */
+        static BatchTransferResult transferAll(List<Transfer> transfers) {
+            Map<AccountPair, List<Integer>> indexesByPair = new HashMap<>();
+            for (int i = 0; i < transfers.size(); i++) {
+                Transfer transfer = transfers.get(i);
+                indexesByPair.computeIfAbsent(new AccountPair(transfer.firstLock(), transfer.secondLock()),
+                        ignored -> new ArrayList<>()).add(i);
+            }
+
+            boolean[] succeeded = new boolean[transfers.size()];
+            indexesByPair.entrySet().parallelStream()
+                    .forEach(group -> applyGroup(transfers, group.getKey(), group.getValue(), succeeded));
+            return new BatchTransferResult(succeeded);
+        }
+
+        private static void applyGroup(List<Transfer> transfers, AccountPair pair, List<Integer> indexes,
+                                       boolean[] succeeded) {
+            if (pair.first != pair.second && lockOrder(pair.first, pair.second) == 0) {
+                synchronized (TRANSFER_TIE_LOCK) {
+                    applyGroupLocked(transfers, pair, indexes, succeeded);
+                }
+            } else {
+                applyGroupLocked(transfers, pair, indexes, succeeded);
+            }
+        }
+
+        private static void applyGroupLocked(List<Transfer> transfers, AccountPair pair, List<Integer> indexes,
+                                             boolean[] succeeded) {
+            synchronized (pair.first) {
+                synchronized (pair.second) {
+                    for (int index : indexes) {
+                        Transfer transfer = transfers.get(index);
+                        succeeded[index] = transfer.source == transfer.target
+                                ? transfer.source.getAvailableBalanceInMinorUnits() >= transfer.amountInMinorUnits
+                                : moveLocked(transfer.source, transfer.target, transfer.amountInMinorUnits);
+                    }
+                }
+            }
+        }
+
+        // 락을 잡는 단위는 계좌 객체이므로, 쌍도 계좌 번호가 아니라 객체 동일성(==)으로 비교한다
+        private static final class AccountPair {
+            private final BankAccount first;
+            private final BankAccount second;
+
+            private AccountPair(BankAccount first, BankAccount second) {
+                this.first = first;
+                this.second = second;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) return true;
+                if (!(o instanceof AccountPair)) return false;
+                AccountPair that = (AccountPair) o;
+                return first == that.first && second == that.second;
+            }
+
+            @Override
+            public int hashCode() {
+                return 31 * System.identityHashCode(first) + System.identityHashCode(second);
+            }
+        }
+
+        /**
+         * 돈 보존 스트레스 테스트. 여러 스레드가 임의의 계좌 쌍 사이에서 단건 이체와 묶음 이체를 섞어 실행한 뒤
+         * 전체 잔액 합이 처음과 같은지 확인한다.
+         */
+        static TransferStressReport runConservationStressTest(List<BankAccount> accounts, int threadCount,
+                                                              int transfersPerThread, int batchSize)
+                throws InterruptedException {
+            if (accounts.size() < 2 || threadCount <= 0 || transfersPerThread <= 0 || batchSize <= 0) {
+                throw new IllegalArgumentException("need >= 2 accounts and positive thread/transfer/batch counts");
+            }
+            long totalBefore = totalBalanceInMinorUnits(accounts);
+            AtomicLong succeededTransfers = new AtomicLong();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                Thread worker = new Thread(() -> {
+                    awaitQuietly(start);
+                    succeededTransfers.addAndGet(runRandomTransfers(accounts, transfersPerThread, batchSize));
+                }, "transfer-stress-" + t);
+                workers.add(worker);
+                worker.start();
+            }
+
+            long startedNanos = System.nanoTime();
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            long elapsedNanos = System.nanoTime() - startedNanos;
+
+            long attempted = (long) threadCount * transfersPerThread;
+            return new TransferStressReport(totalBefore, totalBalanceInMinorUnits(accounts),
+                    attempted, succeededTransfers.get(), elapsedNanos);
+        }
+
+        // 절반은 단건 이체, 절반은 batchSize건 묶음 이체. 방향이 뒤섞여 있어 락 순서가 없으면 교착된다.
+        private static long runRandomTransfers(List<BankAccount> accounts, int transferCount, int batchSize) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long succeeded = 0;
+            int remaining = transferCount;
+            List<Transfer> batch = new ArrayList<>(batchSize);
+            while (remaining > 0) {
+                if (random.nextBoolean()) {
+                    BankAccount source = accounts.get(random.nextInt(accounts.size()));
+                    BankAccount target = accounts.get(random.nextInt(accounts.size()));
+                    if (source.transferMinorUnits(target, 1 + random.nextInt(1_000))) succeeded++;
+                    remaining--;
+                } else {
+                    int size = Math.min(batchSize, remaining);
+                    for (int i = 0; i < size; i++) {
+                        batch.add(new Transfer(accounts.get(random.nextInt(accounts.size())),
+                                accounts.get(random.nextInt(accounts.size())), 1 + random.nextInt(1_000)));
+                    }
+                    succeeded += transferAll(batch).getSucceededCount();
+                    batch.clear();
+                    remaining -= size;
+                }
+            }
+            return succeeded;
+        }
+
+        private static long totalBalanceInMinorUnits(List<BankAccount> accounts) {
+            long total = 0;
+            for (BankAccount account : accounts) {
+                total += account.getAvailableBalanceInMinorUnits();
+            }
+            return total;
+        }
+
+        private static void awaitQuietly(CountDownLatch latch) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static class TransferStressReport {
+        private final long totalBeforeInMinorUnits;
+        private final long totalAfterInMinorUnits;
+        private final long attemptedTransfers;
+        private final long succeededTransfers;
+        private final long elapsedNanos;
+
+        TransferStressReport(long totalBeforeInMinorUnits, long totalAfterInMinorUnits,
+                             long attemptedTransfers, long succeededTransfers, long elapsedNanos) {
+            this.totalBeforeInMinorUnits = totalBeforeInMinorUnits;
+            this.totalAfterInMinorUnits = totalAfterInMinorUnits;
+            this.attemptedTransfers = attemptedTransfers;
+            this.succeededTransfers = succeededTransfers;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public boolean isMoneyConserved() { return totalBeforeInMinorUnits == totalAfterInMinorUnits; }
+        public long getAttemptedTransfers() { return attemptedTransfers; }
+        public long getSucceededTransfers() { return succeededTransfers; }
+
+        public double getTransfersPerSecond() {
+            return elapsedNanos == 0 ? 0 : attemptedTransfers * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("TransferStressReport{conserved=%s, before=%d, after=%d, attempted=%d, succeeded=%d, %.0f transfers/s}",
+                    isMoneyConserved(), totalBeforeInMinorUnits, totalAfterInMinorUnits,
+                    attemptedTransfers, succeededTransfers, getTransfersPerSecond());
+        }
     }
 
     enum AccountType {
@@ -752,6 +1105,23 @@ public class MeaningfulName {
                     totalProcessedRecords, successfulInsertions, failedValidationCount);
         }
 
+        // 수천만 건 파일은 List로 올리지 않고 파일에서 흘려 읽으며 묶음 단위로 넣는다
+        public IngestStatistics ingestLargeDataset(Path dataFile, RecordBatchWriter writer, IngestSettings settings)
+                throws IOException, InterruptedException {
+            DatabaseConnectionPool pool = connectionPool != null
+                    ? connectionPool
+                    : new DatabaseConnectionPool(settings.getWorkerCount());
+            try (MappedRecordFileReader reader =
+                         new MappedRecordFileReader(dataFile, MappedRecordFileReader.DEFAULT_WINDOW_BYTES)) {
+                IngestStatistics statistics = StreamingRecordIngest.run(reader,
+                        new PooledBatchInserter(pool, writer), settings,
+                        progress -> System.out.println("Ingest progress - " + progress));
+                System.out.printf("Processed: %d, Success: %d, Failed: %d%n",
+                        statistics.getProcessedCount(), statistics.getSuccessCount(), statistics.getFailedCount());
+                return statistics;
+            }
+        }
+
         private boolean validateRecord(DataRecord record) {
             return record != null && record.isValid();
         }
@@ -827,30 +1197,57 @@ public class MeaningfulName {
         }
 
         // 좋은 예: 도메인 용어 사용
+        // 정규화한 이메일로 색인하고 활성 고객 집합을 따로 유지한다.
+        // 로그인 조회는 O(1), 활성 고객 목록은 활성 고객 수(k)에 비례한다.
+        // 고객의 이메일이나 활성 여부를 바꾼 뒤에는 saveCustomer로 다시 저장해야 색인에 반영된다.
         class CustomerRepository {
             Map<String, Customer> customers;
             List<Customer> searchResults;
+            private final Map<Customer, String> emailKeyByCustomer;
+            private final Set<Customer> activeCustomers;
 
             public CustomerRepository() {
-                this.customers = new HashMap<>();
+                this.customers = new ConcurrentHashMap<>();
                 this.searchResults = new ArrayList<>();
+                this.emailKeyByCustomer = new ConcurrentHashMap<>();
+                this.activeCustomers = ConcurrentHashMap.newKeySet();
             }
 
-            public void saveCustomer(Customer customer) {
-                customers.put(customer.getRecordId(), customer);
+            // 저장은 한 번에 한 스레드씩 (이메일 변경 시 옛 색인 제거와 새 색인 추가를 함께 하기 위해), 조회는 락 없이
+            public synchronized void saveCustomer(Customer customer) {
+                String emailKey = emailKeyOf(customer);
+                String previousKey = emailKeyByCustomer.put(customer, emailKey);
+                if (previousKey != null && !previousKey.equals(emailKey)) {
+                    customers.remove(previousKey, customer);
+                }
+                Customer replaced = customers.put(emailKey, customer);
+                if (replaced != null && replaced != customer) {
+                    emailKeyByCustomer.remove(replaced);
+                    activeCustomers.remove(replaced);
+                }
+                if (customer.isActive()) {
+                    activeCustomers.add(customer);
+                } else {
+                    activeCustomers.remove(customer);
+                }
             }
 
             public Customer findByEmail(String email) {
-                return customers.values().stream()
-                        .filter(customer -> customer.getRecordId().equals(email))
-                        .findFirst()
-                        .orElse(null);
+                return email == null ? null : customers.get(normalizeEmail(email));
             }
 
             public List<Customer> findActiveCustomers() {
-                return customers.values().stream()
-                        .filter(customer -> customer.getRecordId() != null)
-                        .collect(Collectors.toList());
+                return new ArrayList<>(activeCustomers);
+            }
+
+            // 이메일이 없는 고객은 예전처럼 레코드 ID로 찾을 수 있게 한다
+            private String emailKeyOf(Customer customer) {
+                String email = customer.getEmail();
+                return normalizeEmail(email != null ? email : customer.getRecordId());
+            }
+
+            private String normalizeEmail(String email) {
+                return email.trim().toLowerCase(Locale.ROOT);
             }
         }
     }
@@ -964,7 +1361,55 @@ public class MeaningfulName {
 
     class OrderStateMachine {
         public boolean canTransitionTo(OrderStatus from, OrderStatus to) {
-            // 상태 전환 로직
+            // 상태 전환 로직은 OrderTransitionTable에 한 번 계산해 둔 비트마스크로 확인
+            return OrderTransitionTable.canTransition(from, to);
+        }
+
+        public List<OrderStatus> getValidNextStates(OrderStatus currentStatus) {
+            return new ArrayList<>(OrderTransitionTable.validNextStates(currentStatus));
+        }
+
+        public boolean isTerminalState(OrderStatus status) {
+            return status == OrderStatus.DELIVERED || status == OrderStatus.CANCELLED;
+        }
+    }
+
+    // 상태 전환 규칙을 상태마다 비트마스크 하나로 미리 계산해 둔다. 조회는 배열 접근과 AND 한 번이다.
+    static final class OrderTransitionTable {
+        private static final OrderStatus[] STATUSES = OrderStatus.values();
+        private static final int[] ALLOWED_TARGET_MASKS = new int[STATUSES.length];
+        private static final List<List<OrderStatus>> VALID_NEXT_STATES = new ArrayList<>();
+
+        static {
+            for (OrderStatus from : STATUSES) {
+                List<OrderStatus> nextStates = new ArrayList<>();
+                for (OrderStatus to : STATUSES) {
+                    if (isAllowed(from, to)) {
+                        ALLOWED_TARGET_MASKS[from.ordinal()] |= 1 << to.ordinal();
+                        nextStates.add(to);
+                    }
+                }
+                VALID_NEXT_STATES.add(Collections.unmodifiableList(nextStates));
+            }
+        }
+
+        private OrderTransitionTable() {
+        }
+
+        static boolean canTransition(OrderStatus from, OrderStatus to) {
+            return (ALLOWED_TARGET_MASKS[from.ordinal()] & (1 << to.ordinal())) != 0;
+        }
+
+        static List<OrderStatus> validNextStates(OrderStatus from) {
+            return VALID_NEXT_STATES.get(from.ordinal());
+        }
+
+        static OrderStatus statusOf(int code) {
+            return STATUSES[code];
+        }
+
+        // 전환 규칙의 원본. 표를 만들 때 한 번씩만 호출된다.
+        private static boolean isAllowed(OrderStatus from, OrderStatus to) {
             return switch (from) {
                 case PENDING -> to == OrderStatus.CONFIRMED || to == OrderStatus.CANCELLED;
                 case CONFIRMED -> to == OrderStatus.PROCESSING || to == OrderStatus.CANCELLED;
@@ -973,19 +1418,309 @@ public class MeaningfulName {
                 case DELIVERED, CANCELLED -> false;
             };
         }
+    }
 
-        public List<OrderStatus> getValidNextStates(OrderStatus currentStatus) {
-            List<OrderStatus> validStates = new ArrayList<>();
+    /**
+     * 주문 상태 전환 이벤트를 추가 전용 세그먼트 파일에 기록하는 저장소.
+     *
+     * 세그먼트의 첫 32바이트는 헤더이다:
+     *   [magic int][recordSize int][recordsPerSegment int] + 여유 공간
+     * 세그먼트 크기를 파일에 남겨 두므로, 다른 recordsPerSegment로 다시 열어도 기존 세그먼트는 원래 크기로 읽는다.
+     *
+     * 헤더 뒤로 32바이트 고정 길이 레코드가 이어진다:
+     *   [orderId long][timestamp long][from byte][to byte][reserved short][checksum int][reserved int][marker int]
+     * 32는 페이지 크기(4K)의 약수라 레코드가 페이지 경계에 걸치지 않는다.
+     * 그래도 한 페이지 안에서 일부만 디스크에 내려갈 수 있으므로, marker와 함께 내용의 checksum이 맞아야
+     * 온전한 레코드로 본다. 온전하지 않은 첫 레코드부터가 아직 쓰이지 않은(또는 쓰다 만) 영역이다.
+     * 주문 생성은 from = NEW_ORDER 인 이벤트로 기록한다.
+     *
+     * 시작할 때 세그먼트들을 병렬로 읽어 주문별 현재 상태와 상태별 주문 수를 복원한다.
+     * 쓰기는 락 하나로 직렬화하고, 조회(currentStatus, 상태별 개수)는 락 없이 읽는다.
+     */
+    static final class OrderEventStore implements AutoCloseable {
+        static final int RECORD_SIZE = 32;
+        static final int HEADER_SIZE = RECORD_SIZE;
+        static final int SEGMENT_MAGIC = 0x4F455632; // "OEV2"
+        static final int RECORD_MARKER = 0x4F455631; // "OEV1"
+        static final byte NEW_ORDER = -1;
+
+        private static final int HEADER_RECORD_SIZE_OFFSET = 4;
+        private static final int HEADER_RECORDS_PER_SEGMENT_OFFSET = 8;
+
+        private static final int ORDER_ID_OFFSET = 0;
+        private static final int TIMESTAMP_OFFSET = 8;
+        private static final int FROM_OFFSET = 16;
+        private static final int TO_OFFSET = 17;
+        private static final int CHECKSUM_OFFSET = 20;
+        private static final int MARKER_OFFSET = 28;
+
+        private final Path directory;
+        private final int recordsPerNewSegment;
+        private final Map<Long, OrderStatus> currentStatusByOrderId;
+        private final AtomicLongArray orderCountsByStatus;
+        private final Object appendLock = new Object();
+
+        private FileChannel segmentChannel;
+        private MappedByteBuffer segment;
+        private int segmentIndex;
+        private long appendedEventCount;
+
+        private OrderEventStore(Path directory, int recordsPerNewSegment, Map<Long, OrderStatus> recoveredStatuses) {
+            this.directory = directory;
+            this.recordsPerNewSegment = recordsPerNewSegment;
+            this.currentStatusByOrderId = new ConcurrentHashMap<>(recoveredStatuses);
+            this.orderCountsByStatus = new AtomicLongArray(OrderStatus.values().length);
+            for (OrderStatus status : recoveredStatuses.values()) {
+                orderCountsByStatus.incrementAndGet(status.ordinal());
+            }
+        }
+
+        /**
+         * 디렉터리의 기존 세그먼트로 상태를 복원하고, 마지막 세그먼트의 빈 자리부터 이어서 기록한다.
+         * recordsPerSegment는 새로 만드는 세그먼트에만 적용된다.
+         */
+        static OrderEventStore open(Path directory, int recordsPerSegment) throws IOException {
+            if (recordsPerSegment <= 0 || recordsPerSegment > (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE) {
+                throw new IllegalArgumentException("recordsPerSegment out of range: " + recordsPerSegment);
+            }
+            Files.createDirectories(directory);
+            List<Path> segments = listSegments(directory);
+            OrderEventStore store = new OrderEventStore(directory, recordsPerSegment,
+                    OrderStateProjection.rebuild(segments));
+            store.openSegment(Math.max(0, segments.size() - 1));
+            return store;
+        }
+
+        public boolean createOrder(long orderId) {
+            synchronized (appendLock) {
+                if (currentStatusByOrderId.containsKey(orderId)) {
+                    return false;
+                }
+                appendEvent(orderId, NEW_ORDER, OrderStatus.PENDING);
+                currentStatusByOrderId.put(orderId, OrderStatus.PENDING);
+                orderCountsByStatus.incrementAndGet(OrderStatus.PENDING.ordinal());
+                return true;
+            }
+        }
+
+        /** 허용되지 않는 전환이거나 없는 주문이면 기록하지 않고 false를 반환한다. */
+        public boolean transition(long orderId, OrderStatus to) {
+            synchronized (appendLock) {
+                OrderStatus from = currentStatusByOrderId.get(orderId);
+                if (from == null || !OrderTransitionTable.canTransition(from, to)) {
+                    return false;
+                }
+                appendEvent(orderId, (byte) from.ordinal(), to);
+                currentStatusByOrderId.put(orderId, to);
+                orderCountsByStatus.decrementAndGet(from.ordinal());
+                orderCountsByStatus.incrementAndGet(to.ordinal());
+                return true;
+            }
+        }
+
+        public OrderStatus currentStatus(long orderId) {
+            return currentStatusByOrderId.get(orderId);
+        }
+
+        public long countOrdersIn(OrderStatus status) {
+            return orderCountsByStatus.get(status.ordinal());
+        }
+
+        public Map<OrderStatus, Long> orderCountsByStatus() {
+            Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
             for (OrderStatus status : OrderStatus.values()) {
-                if (canTransitionTo(currentStatus, status)) {
-                    validStates.add(status);
+                counts.put(status, countOrdersIn(status));
+            }
+            return counts;
+        }
+
+        // 이 저장소를 연 뒤 기록한 이벤트 수 (복원된 이벤트는 포함하지 않음)
+        public long getAppendedEventCount() {
+            synchronized (appendLock) {
+                return appendedEventCount;
+            }
+        }
+
+        /** 지금까지 기록한 이벤트를 디스크에 내린다. */
+        public void sync() {
+            synchronized (appendLock) {
+                segment.force();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (appendLock) {
+                segment.force();
+                segmentChannel.close();
+            }
+        }
+
+        private void appendEvent(long orderId, byte fromCode, OrderStatus to) {
+            if (segment.remaining() < RECORD_SIZE) {
+                rollSegment();
+            }
+            int position = segment.position();
+            long timestamp = System.currentTimeMillis();
+            byte toCode = (byte) to.ordinal();
+            segment.putLong(position + ORDER_ID_OFFSET, orderId);
+            segment.putLong(position + TIMESTAMP_OFFSET, timestamp);
+            segment.put(position + FROM_OFFSET, fromCode);
+            segment.put(position + TO_OFFSET, toCode);
+            segment.putInt(position + CHECKSUM_OFFSET, checksumOf(orderId, timestamp, fromCode, toCode));
+            segment.putInt(position + MARKER_OFFSET, RECORD_MARKER);
+            segment.position(position + RECORD_SIZE);
+            appendedEventCount++;
+        }
+
+        private void rollSegment() {
+            try {
+                segment.force();
+                segmentChannel.close();
+                openSegment(segmentIndex + 1);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // 헤더가 있는 세그먼트는 헤더에 적힌 크기로, 새 세그먼트는 설정된 크기로 연다
+        private void openSegment(int index) throws IOException {
+            Path file = directory.resolve(segmentFileName(index));
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                int recordsPerSegment = channel.size() >= HEADER_SIZE ? readRecordsPerSegment(channel, file) : 0;
+                boolean isNew = recordsPerSegment == 0;
+                if (isNew) {
+                    recordsPerSegment = recordsPerNewSegment;
                 }
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSizeOf(recordsPerSegment));
+                if (isNew) {
+                    writeHeader(segment, recordsPerSegment);
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            segmentChannel = channel;
+            segmentIndex = index;
+            int position = HEADER_SIZE;
+            while (position + RECORD_SIZE <= segment.limit() && isCompleteRecord(segment, position)) {
+                position += RECORD_SIZE;
             }
-            return validStates;
+            segment.position(position);
         }
 
-        public boolean isTerminalState(OrderStatus status) {
-            return status == OrderStatus.DELIVERED || status == OrderStatus.CANCELLED;
+        // 헤더는 레코드보다 먼저 디스크에 내려 둔다: 헤더 없이 레코드만 남은 세그먼트가 생기지 않도록
+        private static void writeHeader(MappedByteBuffer segment, int recordsPerSegment) {
+            segment.putInt(HEADER_RECORD_SIZE_OFFSET, RECORD_SIZE);
+            segment.putInt(HEADER_RECORDS_PER_SEGMENT_OFFSET, recordsPerSegment);
+            segment.putInt(0, SEGMENT_MAGIC);
+            segment.force();
+        }
+
+        /** 헤더에 적힌 세그먼트당 레코드 수. 헤더가 아직 기록되지 않은(모두 0인) 파일이면 0을 반환한다. */
+        static int readRecordsPerSegment(FileChannel channel, Path file) throws IOException {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            int magic = header.getInt(0);
+            if (magic == 0) {
+                return 0;
+            }
+            if (magic != SEGMENT_MAGIC || header.getInt(HEADER_RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+                throw new IOException("not an order event segment (or written by another format): " + file);
+            }
+            int recordsPerSegment = header.getInt(HEADER_RECORDS_PER_SEGMENT_OFFSET);
+            if (recordsPerSegment <= 0 || segmentSizeOf(recordsPerSegment) > channel.size()) {
+                throw new IOException("corrupt segment header: " + file);
+            }
+            return recordsPerSegment;
+        }
+
+        static int segmentSizeOf(int recordsPerSegment) {
+            return HEADER_SIZE + recordsPerSegment * RECORD_SIZE;
+        }
+
+        static boolean isCompleteRecord(ByteBuffer segment, int position) {
+            return segment.getInt(position + MARKER_OFFSET) == RECORD_MARKER
+                    && segment.getInt(position + CHECKSUM_OFFSET) == checksumOf(
+                            segment.getLong(position + ORDER_ID_OFFSET),
+                            segment.getLong(position + TIMESTAMP_OFFSET),
+                            segment.get(position + FROM_OFFSET),
+                            segment.get(position + TO_OFFSET));
+        }
+
+        // 찢어진 쓰기를 찾기 위한 값이라 암호학적 강도는 필요 없다. 모든 필드의 비트가 결과에 섞이면 충분하다.
+        private static int checksumOf(long orderId, long timestamp, byte fromCode, byte toCode) {
+            long mixed = orderId * 0x9E3779B97F4A7C15L;
+            mixed = (mixed ^ timestamp) * 0xC2B2AE3D27D4EB4FL;
+            mixed = (mixed ^ ((fromCode & 0xFFL) << 8 | (toCode & 0xFFL))) * 0x165667B19E3779F9L;
+            mixed ^= mixed >>> 32;
+            return (int) mixed;
+        }
+
+        static String segmentFileName(int index) {
+            return String.format("orders-%08d.log", index);
+        }
+
+        // 파일 이름에 번호가 0으로 채워져 있어 이름순이 곧 기록 순서다
+        static List<Path> listSegments(Path directory) throws IOException {
+            List<Path> segments = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "orders-*.log")) {
+                for (Path segment : stream) {
+                    segments.add(segment);
+                }
+            }
+            Collections.sort(segments);
+            return segments;
+        }
+    }
+
+    // 이벤트 로그에서 주문별 현재 상태를 다시 만든다. 세그먼트는 병렬로 읽고, 결과는 기록 순서대로 덮어쓴다.
+    static final class OrderStateProjection {
+        private OrderStateProjection() {
+        }
+
+        static Map<Long, OrderStatus> rebuild(List<Path> segments) throws IOException {
+            List<Map<Long, Byte>> lastStatusPerSegment;
+            try {
+                lastStatusPerSegment = segments.parallelStream()
+                        .map(OrderStateProjection::readLastStatuses)
+                        .collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            Map<Long, OrderStatus> currentStatuses = new HashMap<>();
+            for (Map<Long, Byte> segmentStatuses : lastStatusPerSegment) {
+                for (Map.Entry<Long, Byte> entry : segmentStatuses.entrySet()) {
+                    currentStatuses.put(entry.getKey(), OrderTransitionTable.statusOf(entry.getValue()));
+                }
+            }
+            return currentStatuses;
+        }
+
+        private static Map<Long, Byte> readLastStatuses(Path segmentPath) {
+            try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+                Map<Long, Byte> lastStatuses = new HashMap<>();
+                int recordsPerSegment = channel.size() >= OrderEventStore.HEADER_SIZE
+                        ? OrderEventStore.readRecordsPerSegment(channel, segmentPath) : 0;
+                if (recordsPerSegment == 0) {
+                    return lastStatuses; // 헤더도 기록되기 전에 멈춘 빈 세그먼트
+                }
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                        OrderEventStore.segmentSizeOf(recordsPerSegment));
+                for (int position = OrderEventStore.HEADER_SIZE; position + OrderEventStore.RECORD_SIZE <= segment.limit();
+                     position += OrderEventStore.RECORD_SIZE) {
+                    if (!OrderEventStore.isCompleteRecord(segment, position)) {
+                        break;
+                    }
+                    lastStatuses.put(segment.getLong(position + OrderEventStore.ORDER_ID_OFFSET),
+                            segment.get(position + OrderEventStore.TO_OFFSET));
+                }
+                return lastStatuses;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
     }
 
@@ -1154,41 +1889,351 @@ public class MeaningfulName {
             double shipping = calculateShippingCost(order, shippingOption);
             return basePrice - discount + shipping;
         }
-    }
 
-    // 12. Factory 패턴에서의 명명
-    class FactoryNaming {
-        interface NotificationFactory {
-            Notification createNotification(NotificationType type, String message);
+        // 배치 엔진이 기본 규칙으로 낸 가격이 calculateFinalPrice와 비트 단위로 같은지 모든 주문에 대해 확인
+        public void verifyBatchPricing(BatchPricingEngine engine) {
+            if (engine.getRules() != PricingRuleSet.DEFAULT) {
+                throw new IllegalStateException("Batch engine must use the default rule set for a cross-check");
+            }
+            Customer vipCustomer = new Customer();
+            Order order = new Order(null, new ArrayList<>(), null);
+            for (int i = 0; i < engine.getOrderCount(); i++) {
+                order.setPrice(engine.getPrice(i));
+                order.setQuantity(engine.getQuantity(i));
+                double expected = calculateFinalPrice(engine.isVipCustomer(i) ? vipCustomer : null,
+                        order, engine.getShippingOption(i));
+                double actual = engine.getFinalPrice(i);
+                if (Double.doubleToLongBits(expected) != Double.doubleToLongBits(actual)) {
+                    throw new IllegalStateException(String.format(
+                            "Batch price mismatch at order %d: expected=%s, actual=%s", i, expected, actual));
+                }
+            }
         }
+    }
 
-        class EmailNotificationFactory implements NotificationFactory {
-            @Override
-            public Notification createNotification(NotificationType type, String message) {
-                return new EmailNotification(message);
+    // 가격 규칙 한 벌. 바꿀 때마다 새 객체를 만들고, 버전은 프로세스 전체에서 만든 순서대로 매긴다.
+    // (같은 규칙에서 두 번 갈라져 나와도 버전이 겹치지 않도록 전역 카운터를 쓴다)
+    static final class PricingRuleSet {
+        private static final AtomicLong NEXT_VERSION = new AtomicLong(1);
+
+        static final PricingRuleSet DEFAULT = new PricingRuleSet(
+                BusinessRuleNaming.BULK_ORDER_MINIMUM_QUANTITY,
+                BusinessRuleNaming.FREE_SHIPPING_THRESHOLD,
+                BusinessRuleNaming.VIP_DISCOUNT_RATE,
+                BusinessRuleNaming.BULK_DISCOUNT_RATE,
+                new double[]{0.0, BusinessRuleNaming.PREMIUM_SHIPPING_COST, BusinessRuleNaming.PREMIUM_SHIPPING_COST * 2});
+
+        private final long version;
+        private final int bulkOrderMinimumQuantity;
+        private final double freeShippingThreshold;
+        private final double vipDiscountRate;
+        private final double bulkDiscountRate;
+        private final double[] shippingCostByOption; // ShippingOption.ordinal() 순서
+
+        private PricingRuleSet(int bulkOrderMinimumQuantity, double freeShippingThreshold,
+                               double vipDiscountRate, double bulkDiscountRate, double[] shippingCostByOption) {
+            if (shippingCostByOption.length != ShippingOption.values().length) {
+                throw new IllegalArgumentException("one shipping cost per ShippingOption is required");
             }
+            this.version = NEXT_VERSION.getAndIncrement();
+            this.bulkOrderMinimumQuantity = bulkOrderMinimumQuantity;
+            this.freeShippingThreshold = freeShippingThreshold;
+            this.vipDiscountRate = vipDiscountRate;
+            this.bulkDiscountRate = bulkDiscountRate;
+            this.shippingCostByOption = shippingCostByOption;
         }
 
-        class SmsNotificationFactory implements NotificationFactory {
-            @Override
-            public Notification createNotification(NotificationType type, String message) {
-                return new SmsNotification(message);
-            }
+        public long getVersion() { return version; }
+
+        public PricingRuleSet withVipDiscountRate(double rate) {
+            return new PricingRuleSet(bulkOrderMinimumQuantity, freeShippingThreshold,
+                    rate, bulkDiscountRate, shippingCostByOption);
         }
 
-        class PushNotificationFactory implements NotificationFactory {
-            @Override
-            public Notification createNotification(NotificationType type, String message) {
-                return new PushNotification(message);
-            }
+        public PricingRuleSet withBulkDiscount(int minimumQuantity, double rate) {
+            return new PricingRuleSet(minimumQuantity, freeShippingThreshold,
+                    vipDiscountRate, rate, shippingCostByOption);
         }
 
-        // Factory Provider 패턴
-        class NotificationFactoryProvider {
-            private Map<NotificationType, NotificationFactory> factories;
+        public PricingRuleSet withFreeShippingThreshold(double threshold) {
+            return new PricingRuleSet(bulkOrderMinimumQuantity, threshold,
+                    vipDiscountRate, bulkDiscountRate, shippingCostByOption);
+        }
 
-            public NotificationFactoryProvider() {
-                factories = new HashMap<>();
+        public PricingRuleSet withShippingCost(ShippingOption option, double cost) {
+            double[] costs = shippingCostByOption.clone();
+            costs[option.ordinal()] = cost;
+            return new PricingRuleSet(bulkOrderMinimumQuantity, freeShippingThreshold,
+                    vipDiscountRate, bulkDiscountRate, costs);
+        }
+    }
+
+    /**
+     * 장바구니/카탈로그 전체를 한 번에 가격 계산하는 엔진. 주문을 열(column) 배열로 보관하고
+     * BusinessRuleNaming.calculateFinalPrice와 같은 식을 원시 타입 루프로 계산한다.
+     *
+     * 규칙이 바뀌면 바뀐 규칙에 영향을 받는 주문만 다시 계산한다.
+     * 이를 위해 VIP 주문 목록, 비VIP 주문의 수량 정렬 인덱스, 배송 옵션별 가격 정렬 인덱스를 만들어 둔다.
+     * 스레드 안전하지 않다.
+     */
+    static final class BatchPricingEngine {
+        private final int[] prices;
+        private final int[] quantities;
+        private final boolean[] vipCustomers;
+        private final byte[] shippingOptions;
+        private final double[] finalPrices;
+        private PricingRuleSet rules;
+
+        // 재계산용 인덱스. 처음 규칙을 바꿀 때 만든다 (한 번만 계산하고 끝나는 경우에는 필요 없으므로)
+        private int[] vipOrders;
+        private SortedOrderIndex nonVipOrdersByQuantity;
+        private SortedOrderIndex[] ordersByPricePerOption;
+
+        private BatchPricingEngine(int[] prices, int[] quantities, boolean[] vipCustomers, byte[] shippingOptions) {
+            this.prices = prices;
+            this.quantities = quantities;
+            this.vipCustomers = vipCustomers;
+            this.shippingOptions = shippingOptions;
+            this.finalPrices = new double[prices.length];
+        }
+
+        private void buildRepricingIndexes() {
+            int vipCount = 0;
+            for (boolean vip : vipCustomers) {
+                if (vip) vipCount++;
+            }
+            vipOrders = new int[vipCount];
+            int[] nonVipOrders = new int[prices.length - vipCount];
+            int[][] ordersPerOption = new int[ShippingOption.values().length][];
+            int[] optionCounts = new int[ordersPerOption.length];
+            for (byte option : shippingOptions) {
+                optionCounts[option]++;
+            }
+            for (int option = 0; option < ordersPerOption.length; option++) {
+                ordersPerOption[option] = new int[optionCounts[option]];
+                optionCounts[option] = 0;
+            }
+            int vipCursor = 0;
+            int nonVipCursor = 0;
+            for (int order = 0; order < prices.length; order++) {
+                if (vipCustomers[order]) {
+                    vipOrders[vipCursor++] = order;
+                } else {
+                    nonVipOrders[nonVipCursor++] = order;
+                }
+                int option = shippingOptions[order];
+                ordersPerOption[option][optionCounts[option]++] = order;
+            }
+
+            nonVipOrdersByQuantity = new SortedOrderIndex(nonVipOrders, quantities);
+            ordersByPricePerOption = new SortedOrderIndex[ordersPerOption.length];
+            for (int option = 0; option < ordersPerOption.length; option++) {
+                ordersByPricePerOption[option] = new SortedOrderIndex(ordersPerOption[option], prices);
+            }
+        }
+
+        /** 열 배열은 복사하지 않고 그대로 사용하므로, 엔진에 넘긴 뒤에는 수정하지 않아야 한다. */
+        static BatchPricingEngine of(int[] prices, int[] quantities, boolean[] vipCustomers,
+                                     ShippingOption[] shippingOptions, PricingRuleSet rules) {
+            int orderCount = prices.length;
+            if (quantities.length != orderCount || vipCustomers.length != orderCount
+                    || shippingOptions.length != orderCount) {
+                throw new IllegalArgumentException("all columns must have the same length");
+            }
+            byte[] optionCodes = new byte[orderCount];
+            for (int order = 0; order < orderCount; order++) {
+                optionCodes[order] = (byte) shippingOptions[order].ordinal();
+            }
+            BatchPricingEngine engine = new BatchPricingEngine(prices, quantities, vipCustomers, optionCodes);
+            engine.priceAll(rules);
+            return engine;
+        }
+
+        public int getOrderCount() { return prices.length; }
+        public int getPrice(int order) { return prices[order]; }
+        public int getQuantity(int order) { return quantities[order]; }
+        public boolean isVipCustomer(int order) { return vipCustomers[order]; }
+        public ShippingOption getShippingOption(int order) { return ShippingOption.values()[shippingOptions[order]]; }
+        public double getFinalPrice(int order) { return finalPrices[order]; }
+        public double[] getFinalPrices() { return finalPrices.clone(); }
+        public PricingRuleSet getRules() { return rules; }
+
+        /**
+         * 새 규칙을 적용한다. 규칙 차이로 가격이 달라질 수 있는 주문만 다시 계산하고,
+         * 다시 계산한 주문 번호를 오름차순으로 반환한다.
+         *
+         * 이미 적용된 규칙(같은 버전)이면 아무것도 하지 않는다.
+         * 지금 규칙보다 먼저 만들어진 규칙은 늦게 도착한 변경으로 보고 거부한다.
+         */
+        public int[] applyRules(PricingRuleSet newRules) {
+            if (newRules.version == rules.version) {
+                return new int[0];
+            }
+            if (newRules.version < rules.version) {
+                throw new IllegalArgumentException(String.format(
+                        "Stale rule set: version %d is older than applied version %d",
+                        newRules.version, rules.version));
+            }
+            if (vipOrders == null) {
+                buildRepricingIndexes();
+            }
+            PricingRuleSet oldRules = rules;
+            BitSet affected = new BitSet(prices.length);
+
+            if (oldRules.vipDiscountRate != newRules.vipDiscountRate) {
+                for (int order : vipOrders) {
+                    affected.set(order);
+                }
+            }
+            int lowerMinimum = Math.min(oldRules.bulkOrderMinimumQuantity, newRules.bulkOrderMinimumQuantity);
+            int upperMinimum = Math.max(oldRules.bulkOrderMinimumQuantity, newRules.bulkOrderMinimumQuantity);
+            if (oldRules.bulkDiscountRate != newRules.bulkDiscountRate) {
+                nonVipOrdersByQuantity.markAtLeast(lowerMinimum, affected);
+            } else if (lowerMinimum != upperMinimum) {
+                nonVipOrdersByQuantity.markInRange(lowerMinimum, upperMinimum, affected);
+            }
+
+            double lowerThreshold = Math.min(oldRules.freeShippingThreshold, newRules.freeShippingThreshold);
+            double upperThreshold = Math.max(oldRules.freeShippingThreshold, newRules.freeShippingThreshold);
+            for (int option = 0; option < ordersByPricePerOption.length; option++) {
+                if (oldRules.shippingCostByOption[option] != newRules.shippingCostByOption[option]) {
+                    // 옛 규칙이나 새 규칙 중 하나라도 유료 배송이었던 주문
+                    ordersByPricePerOption[option].markBelow(upperThreshold, affected);
+                } else if (lowerThreshold != upperThreshold) {
+                    ordersByPricePerOption[option].markInRange(lowerThreshold, upperThreshold, affected);
+                }
+            }
+
+            rules = newRules;
+            int[] repriced = affected.stream().toArray();
+            for (int order : repriced) {
+                finalPrices[order] = priceOf(order, newRules);
+            }
+            return repriced;
+        }
+
+        private void priceAll(PricingRuleSet newRules) {
+            int bulkMinimum = newRules.bulkOrderMinimumQuantity;
+            double vipRate = newRules.vipDiscountRate;
+            double bulkRate = newRules.bulkDiscountRate;
+            double freeThreshold = newRules.freeShippingThreshold;
+            double[] shippingCosts = newRules.shippingCostByOption;
+            for (int order = 0; order < prices.length; order++) {
+                double basePrice = prices[order];
+                double discountRate = vipCustomers[order] ? vipRate
+                        : quantities[order] >= bulkMinimum ? bulkRate : 0.0;
+                double shipping = prices[order] >= freeThreshold ? 0.0 : shippingCosts[shippingOptions[order]];
+                finalPrices[order] = basePrice - basePrice * discountRate + shipping;
+            }
+            rules = newRules;
+        }
+
+        // priceAll 루프 본문과 같은 식 (재계산 결과가 전체 계산과 비트 단위로 같도록)
+        private double priceOf(int order, PricingRuleSet pricingRules) {
+            double basePrice = prices[order];
+            double discountRate = vipCustomers[order] ? pricingRules.vipDiscountRate
+                    : quantities[order] >= pricingRules.bulkOrderMinimumQuantity ? pricingRules.bulkDiscountRate : 0.0;
+            double shipping = prices[order] >= pricingRules.freeShippingThreshold
+                    ? 0.0 : pricingRules.shippingCostByOption[shippingOptions[order]];
+            return basePrice - basePrice * discountRate + shipping;
+        }
+    }
+
+    // 주문 번호를 키 값(수량 또는 가격) 순으로 정렬해 두고, 키 범위에 속한 주문을 표시한다
+    static final class SortedOrderIndex {
+        private final int[] orders;
+        private final int[] sortedKeys;
+
+        SortedOrderIndex(int[] orders, int[] keyByOrder) {
+            long[] packed = new long[orders.length];
+            for (int i = 0; i < orders.length; i++) {
+                // 상위 32비트에 키, 하위 32비트에 주문 번호를 넣어 한 번의 원시 정렬로 끝낸다
+                packed[i] = ((long) keyByOrder[orders[i]] << 32) | orders[i];
+            }
+            Arrays.sort(packed);
+            this.orders = new int[orders.length];
+            this.sortedKeys = new int[orders.length];
+            for (int i = 0; i < packed.length; i++) {
+                this.orders[i] = (int) packed[i];
+                this.sortedKeys[i] = (int) (packed[i] >> 32);
+            }
+        }
+
+        void markAtLeast(int minimumKey, BitSet target) {
+            mark(firstIndexAtLeast(minimumKey), orders.length, target);
+        }
+
+        void markInRange(long inclusiveLower, long exclusiveUpper, BitSet target) {
+            mark(firstIndexAtLeast(inclusiveLower), firstIndexAtLeast(exclusiveUpper), target);
+        }
+
+        // key >= threshold 비교를 double 그대로 하기 위해, threshold 이상인 가장 작은 정수로 바꿔 찾는다
+        void markInRange(double inclusiveLower, double exclusiveUpper, BitSet target) {
+            markInRange(ceilToLong(inclusiveLower), ceilToLong(exclusiveUpper), target);
+        }
+
+        void markBelow(double exclusiveUpper, BitSet target) {
+            mark(0, firstIndexAtLeast(ceilToLong(exclusiveUpper)), target);
+        }
+
+        private static long ceilToLong(double value) {
+            return (long) Math.ceil(Math.max(Math.min(value, Long.MAX_VALUE / 2.0), Long.MIN_VALUE / 2.0));
+        }
+
+        private int firstIndexAtLeast(long key) {
+            int low = 0;
+            int high = sortedKeys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sortedKeys[middle] < key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private void mark(int from, int to, BitSet target) {
+            for (int i = from; i < to; i++) {
+                target.set(orders[i]);
+            }
+        }
+    }
+
+    // 12. Factory 패턴에서의 명명
+    class FactoryNaming {
+        interface NotificationFactory {
+            Notification createNotification(NotificationType type, String message);
+        }
+
+        class EmailNotificationFactory implements NotificationFactory {
+            @Override
+            public Notification createNotification(NotificationType type, String message) {
+                return new EmailNotification(message);
+            }
+        }
+
+        class SmsNotificationFactory implements NotificationFactory {
+            @Override
+            public Notification createNotification(NotificationType type, String message) {
+                return new SmsNotification(message);
+            }
+        }
+
+        class PushNotificationFactory implements NotificationFactory {
+            @Override
+            public Notification createNotification(NotificationType type, String message) {
+                return new PushNotification(message);
+            }
+        }
+
+        // Factory Provider 패턴
+        class NotificationFactoryProvider {
+            private Map<NotificationType, NotificationFactory> factories;
+
+            public NotificationFactoryProvider() {
+                factories = new HashMap<>();
                 factories.put(NotificationType.EMAIL, new EmailNotificationFactory());
                 factories.put(NotificationType.SMS, new SmsNotificationFactory());
                 factories.put(NotificationType.PUSH, new PushNotificationFactory());
@@ -1454,6 +2499,7 @@ public class MeaningfulName {
         public void setEmailNotifications(boolean enabled) { this.emailNotifications = enabled; }
     }
 
+    // 여러 적재 스레드가 함께 쓰므로 모든 메서드를 풀 객체로 동기화한다
     static class DatabaseConnectionPool {
         private int maxConnections;
         private int activeConnections;
@@ -1463,23 +2509,408 @@ public class MeaningfulName {
             this.activeConnections = 0;
         }
 
-        public boolean hasAvailableConnection() {
+        public synchronized boolean hasAvailableConnection() {
             return activeConnections < maxConnections;
         }
 
-        public void acquireConnection() {
+        public synchronized void acquireConnection() {
             if (hasAvailableConnection()) {
                 activeConnections++;
             }
         }
 
-        public void releaseConnection() {
+        // 빈 연결이 생길 때까지 기다렸다가 가져간다
+        public synchronized void acquireConnectionWhenAvailable() throws InterruptedException {
+            while (!hasAvailableConnection()) {
+                wait();
+            }
+            activeConnections++;
+        }
+
+        public synchronized void releaseConnection() {
             if (activeConnections > 0) {
                 activeConnections--;
+                notifyAll();
             }
         }
     }
 
+    // 실제 DB 연결 하나가 하는 일: 레코드 묶음을 한 번에 넣고, 성공한 건수를 반환
+    interface RecordBatchWriter {
+        int insertBatch(List<DataRecord> batch);
+    }
+
+    // 풀에서 연결 하나를 빌려 묶음을 넣고 바로 돌려준다. 풀 크기가 동시에 진행되는 삽입 수의 상한이다.
+    static class PooledBatchInserter {
+        private final DatabaseConnectionPool connectionPool;
+        private final RecordBatchWriter writer;
+
+        PooledBatchInserter(DatabaseConnectionPool connectionPool, RecordBatchWriter writer) {
+            this.connectionPool = Objects.requireNonNull(connectionPool, "connectionPool");
+            this.writer = Objects.requireNonNull(writer, "writer");
+        }
+
+        public int insert(List<DataRecord> batch) throws InterruptedException {
+            connectionPool.acquireConnectionWhenAvailable();
+            try {
+                return writer.insertBatch(batch);
+            } finally {
+                connectionPool.releaseConnection();
+            }
+        }
+    }
+
+    static class IngestSettings {
+        private final int batchSize;
+        private final int workerCount;
+        private final int maxQueuedBatches;
+        private final long progressIntervalMillis;
+
+        IngestSettings(int batchSize, int workerCount, int maxQueuedBatches, long progressIntervalMillis) {
+            if (batchSize <= 0 || workerCount <= 0 || maxQueuedBatches <= 0 || progressIntervalMillis <= 0) {
+                throw new IllegalArgumentException("Ingest settings must be positive");
+            }
+            this.batchSize = batchSize;
+            this.workerCount = workerCount;
+            this.maxQueuedBatches = maxQueuedBatches;
+            this.progressIntervalMillis = progressIntervalMillis;
+        }
+
+        public int getWorkerCount() { return workerCount; }
+    }
+
+    // 적재 중에도 다른 스레드에서 읽을 수 있는 카운터들
+    static class IngestStatistics {
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder failedValidation = new LongAdder();
+        private final LongAdder failedInsertion = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+
+        public long getProcessedCount() { return processed.sum(); }
+        public long getSuccessCount() { return succeeded.sum(); }
+        public long getFailedValidationCount() { return failedValidation.sum(); }
+        public long getFailedInsertionCount() { return failedInsertion.sum(); }
+        public long getFailedCount() { return getFailedValidationCount() + getFailedInsertionCount(); }
+        public long getBatchCount() { return batches.sum(); }
+
+        @Override
+        public String toString() {
+            return String.format("Processed: %d, Success: %d, Failed: %d (validation %d, insert %d), Batches: %d",
+                    getProcessedCount(), getSuccessCount(), getFailedCount(),
+                    getFailedValidationCount(), getFailedInsertionCount(), getBatchCount());
+        }
+    }
+
+    /**
+     * 큰 레코드 파일을 메모리 매핑 창(window) 단위로 훑으면서 한 줄씩 DataRecord로 만든다.
+     * 파일 전체를 힙에 올리지 않으므로 2GB가 넘는 파일도 읽을 수 있다.
+     *
+     * 형식: UTF-8, 첫 줄은 헤더 "recordId,필드1,필드2,...", 이후 한 줄에 레코드 하나.
+     * 값에 쉼표나 줄바꿈이 없는 단순 CSV이다. 헤더의 필드들은 STRING 스키마가 되고, 빈 값은 넣지 않는다.
+     * 스키마에 들어가지 못하는 열(RecordSchema.MAX_FIELDS를 넘는 열, 앞에 같은 이름이 있는 열)은
+     * 레코드의 맵에 담는다. 중복된 이름은 "이름#열번호"로 구분한다.
+     * 열 수가 헤더와 다르거나 recordId가 비어 있는 줄, maxLineBytes보다 긴 줄은 invalid 레코드가 된다
+     * (줄바꿈이 없는 깨진 파일도 한 줄 버퍼가 maxLineBytes를 넘지 않는다).
+     */
+    static class MappedRecordFileReader implements AutoCloseable {
+        static final int DEFAULT_WINDOW_BYTES = 64 * 1024 * 1024;
+        static final int DEFAULT_MAX_LINE_BYTES = 1024 * 1024;
+
+        private final FileChannel channel;
+        private final long fileSize;
+        private final int windowBytes;
+        private final int maxLineBytes;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position;
+        private byte[] lineBytes = new byte[256];
+        private boolean lastLineTooLong;
+        private final RecordSchema schema;
+        private final String[] columnKeys;  // 열 번호 → 레코드에 넣을 이름 (0번 열은 recordId라 비어 있음)
+        private final int[] fieldByColumn;  // 열 번호 → 스키마 필드 번호, 맵에 담는 열이면 -1
+
+        MappedRecordFileReader(Path file, int windowBytes) throws IOException {
+            this(file, windowBytes, DEFAULT_MAX_LINE_BYTES);
+        }
+
+        MappedRecordFileReader(Path file, int windowBytes, int maxLineBytes) throws IOException {
+            if (windowBytes <= 0 || maxLineBytes <= 0) {
+                throw new IllegalArgumentException("windowBytes and maxLineBytes must be > 0");
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.windowBytes = windowBytes;
+            this.maxLineBytes = maxLineBytes;
+            // 헤더를 읽다가 실패하면 호출자는 닫을 객체를 받지 못하므로 여기서 채널을 닫는다
+            try {
+                this.fileSize = channel.size();
+                String[] columns = readHeaderColumns(file);
+                this.schema = schemaOf(columns);
+                this.columnKeys = columnKeysOf(columns);
+                this.fieldByColumn = new int[columns.length];
+                for (int column = 1; column < columns.length; column++) {
+                    fieldByColumn[column] = schema.indexOf(columnKeys[column]);
+                }
+            } catch (IOException | RuntimeException | Error e) {
+                try {
+                    channel.close();
+                } catch (IOException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+                throw e;
+            }
+        }
+
+        private String[] readHeaderColumns(Path file) throws IOException {
+            String header = readLine();
+            if (header == null) {
+                throw new IOException("Empty record file: " + file);
+            }
+            if (lastLineTooLong) {
+                throw new IOException("Header line is longer than " + maxLineBytes + " bytes: " + file);
+            }
+            return header.split(",", -1);
+        }
+
+        // 앞에서부터 서로 다른 이름 MAX_FIELDS개까지만 스키마 필드가 된다
+        private static RecordSchema schemaOf(String[] columns) {
+            RecordSchema.Builder schemaBuilder = RecordSchema.builder();
+            Set<String> fieldNames = new HashSet<>();
+            for (int column = 1; column < columns.length && fieldNames.size() < RecordSchema.MAX_FIELDS; column++) {
+                if (fieldNames.add(columns[column])) {
+                    schemaBuilder.field(columns[column], FieldType.STRING);
+                }
+            }
+            return schemaBuilder.build();
+        }
+
+        private static String[] columnKeysOf(String[] columns) {
+            String[] keys = new String[columns.length];
+            Set<String> seen = new HashSet<>();
+            for (int column = 1; column < columns.length; column++) {
+                String name = columns[column];
+                keys[column] = seen.add(name) ? name : name + "#" + column;
+            }
+            return keys;
+        }
+
+        public RecordSchema getSchema() { return schema; }
+
+        /** 다음 레코드, 파일 끝이면 null */
+        public DataRecord next() throws IOException {
+            String line = readLine();
+            if (line == null) {
+                return null;
+            }
+            if (lastLineTooLong) {
+                // 잘린 앞부분에서 recordId만 살려 어떤 줄이었는지 알 수 있게 한다
+                DataRecord record = new DataRecord(line.split(",", 2)[0], schema);
+                record.markAsInvalid();
+                return record;
+            }
+            String[] values = line.split(",", -1);
+            DataRecord record = new DataRecord(values[0], schema);
+            if (values.length != columnKeys.length || values[0].isEmpty()) {
+                record.markAsInvalid();
+                return record;
+            }
+            for (int column = 1; column < values.length; column++) {
+                String value = values[column];
+                if (value.isEmpty()) {
+                    continue;
+                }
+                if (fieldByColumn[column] >= 0) {
+                    record.setString(fieldByColumn[column], value);
+                } else {
+                    record.addData(columnKeys[column], value);
+                }
+            }
+            return record;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private String readLine() throws IOException {
+            if (position >= fileSize) {
+                return null;
+            }
+            int length = 0;
+            boolean tooLong = false;
+            while (position < fileSize) {
+                ensureMapped(position);
+                int offset = (int) (position - windowStart);
+                int limit = window.limit();
+                int lineEnd = offset;
+                while (lineEnd < limit && window.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int chunkLength = lineEnd - offset;
+                // maxLineBytes를 넘는 부분은 복사하지 않고 줄바꿈까지 건너뛰기만 한다
+                int copyLength = Math.min(chunkLength, maxLineBytes - length);
+                tooLong |= copyLength < chunkLength;
+                if (length + copyLength > lineBytes.length) {
+                    lineBytes = Arrays.copyOf(lineBytes,
+                            Math.min(maxLineBytes, Math.max(lineBytes.length * 2, length + copyLength)));
+                }
+                window.get(offset, lineBytes, length, copyLength);
+                length += copyLength;
+                position += chunkLength;
+                if (lineEnd < limit) {
+                    position++; // 줄바꿈 문자
+                    break;
+                }
+            }
+            lastLineTooLong = tooLong;
+            if (!tooLong && length > 0 && lineBytes[length - 1] == '\r') {
+                length--;
+            }
+            return new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        // 현재 창 밖으로 나가면 그 위치부터 새 창을 매핑한다 (이전 창은 GC가 해제)
+        private void ensureMapped(long filePosition) throws IOException {
+            if (window != null && filePosition < windowStart + window.capacity()) {
+                return;
+            }
+            windowStart = filePosition;
+            long size = Math.min(windowBytes, fileSize - filePosition);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, size);
+        }
+    }
+
+    /**
+     * 스트리밍 적재. 읽는 스레드가 레코드를 batchSize개씩 묶어 크기가 정해진 큐에 넣고,
+     * 워커들이 묶음마다 검증한 뒤 유효한 레코드만 풀의 연결로 한 번에 넣는다.
+     * 메모리에는 최대 (큐 크기 + 워커 수 + 1) 개 묶음만 머문다.
+     *
+     * 워커가 Error 등으로 먼저 죽으면 읽는 스레드가 큐 앞에서 영원히 기다리지 않도록,
+     * 큐에 넣을 때마다 워커 상태를 확인하고 그 실패를 IllegalStateException으로 던진다.
+     */
+    static class StreamingRecordIngest {
+        private static final List<DataRecord> END_OF_INPUT = Collections.emptyList();
+        private static final long WORKER_CHECK_INTERVAL_MILLIS = 100;
+
+        private StreamingRecordIngest() {
+        }
+
+        static IngestStatistics run(MappedRecordFileReader reader, PooledBatchInserter inserter,
+                                    IngestSettings settings, Consumer<IngestStatistics> progressListener)
+                throws IOException, InterruptedException {
+            IngestStatistics statistics = new IngestStatistics();
+            BlockingQueue<List<DataRecord>> batchQueue = new ArrayBlockingQueue<>(settings.maxQueuedBatches);
+            ExecutorService executor = Executors.newFixedThreadPool(settings.workerCount, StreamingRecordIngest::newWorkerThread);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < settings.workerCount; i++) {
+                workers.add(executor.submit(() -> drain(batchQueue, inserter, statistics)));
+            }
+
+            long progressIntervalNanos = TimeUnit.MILLISECONDS.toNanos(settings.progressIntervalMillis);
+            long nextProgressAt = System.nanoTime() + progressIntervalNanos;
+            try {
+                List<DataRecord> batch = new ArrayList<>(settings.batchSize);
+                DataRecord record;
+                while ((record = reader.next()) != null) {
+                    batch.add(record);
+                    if (batch.size() == settings.batchSize) {
+                        enqueue(batchQueue, batch, workers);
+                        batch = new ArrayList<>(settings.batchSize);
+                    }
+                    if (progressListener != null && System.nanoTime() - nextProgressAt >= 0) {
+                        progressListener.accept(statistics);
+                        nextProgressAt = System.nanoTime() + progressIntervalNanos;
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    enqueue(batchQueue, batch, workers);
+                }
+                for (int i = 0; i < workers.size(); i++) {
+                    enqueue(batchQueue, END_OF_INPUT, workers);
+                }
+                for (Future<?> worker : workers) {
+                    awaitWorker(worker);
+                }
+            } finally {
+                // 정상 종료면 이미 모두 끝났고, 실패했으면 남은 워커를 인터럽트해 멈춘다
+                executor.shutdownNow();
+            }
+            if (progressListener != null) {
+                progressListener.accept(statistics);
+            }
+            return statistics;
+        }
+
+        private static Thread newWorkerThread(Runnable task) {
+            Thread worker = new Thread(task, "ingest-worker");
+            worker.setDaemon(true);
+            return worker;
+        }
+
+        // 자리가 날 때까지 기다리되, 기다리는 동안 워커가 모두 죽어 영영 자리가 나지 않는 경우를 확인한다
+        private static void enqueue(BlockingQueue<List<DataRecord>> batchQueue, List<DataRecord> batch,
+                                    List<Future<?>> workers) throws InterruptedException {
+            checkWorkersAlive(workers);
+            while (!batchQueue.offer(batch, WORKER_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkWorkersAlive(workers);
+            }
+        }
+
+        // 입력이 끝나기 전에 끝난 워커는 실패한 것이다 (정상이라면 END_OF_INPUT을 받아야만 끝난다)
+        private static void checkWorkersAlive(List<Future<?>> workers) throws InterruptedException {
+            for (Future<?> worker : workers) {
+                if (worker.isDone()) {
+                    awaitWorker(worker);
+                    throw new IllegalStateException("Ingest worker stopped before the end of input");
+                }
+            }
+        }
+
+        private static void awaitWorker(Future<?> worker) throws InterruptedException {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Ingest worker failed", e.getCause());
+            }
+        }
+
+        private static void drain(BlockingQueue<List<DataRecord>> batchQueue, PooledBatchInserter inserter,
+                                  IngestStatistics statistics) {
+            try {
+                List<DataRecord> batch;
+                while ((batch = batchQueue.take()) != END_OF_INPUT) {
+                    insertValidRecords(batch, inserter, statistics);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static void insertValidRecords(List<DataRecord> batch, PooledBatchInserter inserter,
+                                               IngestStatistics statistics) throws InterruptedException {
+            List<DataRecord> validRecords = new ArrayList<>(batch.size());
+            for (DataRecord record : batch) {
+                if (record != null && record.isValid()) {
+                    validRecords.add(record);
+                }
+            }
+            statistics.failedValidation.add(batch.size() - validRecords.size());
+            if (!validRecords.isEmpty()) {
+                try {
+                    int inserted = inserter.insert(validRecords);
+                    statistics.succeeded.add(inserted);
+                    statistics.failedInsertion.add(validRecords.size() - inserted);
+                } catch (RuntimeException e) {
+                    // 한 묶음의 삽입 실패가 전체 적재를 멈추지 않도록 실패로 세고 넘어간다
+                    statistics.failedInsertion.add(validRecords.size());
+                }
+            }
+            statistics.batches.increment();
+            statistics.processed.add(batch.size());
+        }
+    }
+
     static class Task {
         private String taskId;
         private String description;
@@ -1499,28 +2930,283 @@ public class MeaningfulName {
         public Date getCreatedAt() { return createdAt; }
     }
 
+    enum FieldType { INT, LONG, DOUBLE, BOOLEAN, STRING }
+
+    /**
+     * 레코드 필드 구성. 필드 이름은 스키마에 한 번만 저장되고, 레코드에는 값만 타입별 배열 칸에 들어간다.
+     * 숫자/불리언은 long[] 칸(double은 비트 그대로), 문자열은 Object[] 칸을 쓴다.
+     */
+    static final class RecordSchema {
+        static final int MAX_FIELDS = Long.SIZE; // 필드 존재 여부를 long 비트마스크 하나로 관리
+
+        private final String[] fieldNames;
+        private final FieldType[] fieldTypes;
+        private final int[] slotByField;
+        private final Map<String, Integer> fieldIndexByName;
+        private final int primitiveSlotCount;
+        private final int objectSlotCount;
+
+        private RecordSchema(List<String> names, List<FieldType> types) {
+            this.fieldNames = names.toArray(new String[0]);
+            this.fieldTypes = types.toArray(new FieldType[0]);
+            this.slotByField = new int[fieldNames.length];
+            this.fieldIndexByName = new HashMap<>();
+            int primitiveSlots = 0;
+            int objectSlots = 0;
+            for (int field = 0; field < fieldNames.length; field++) {
+                slotByField[field] = fieldTypes[field] == FieldType.STRING ? objectSlots++ : primitiveSlots++;
+                fieldIndexByName.put(fieldNames[field], field);
+            }
+            this.primitiveSlotCount = primitiveSlots;
+            this.objectSlotCount = objectSlots;
+        }
+
+        static Builder builder() {
+            return new Builder();
+        }
+
+        public int fieldCount() { return fieldNames.length; }
+        public String fieldName(int field) { return fieldNames[field]; }
+        public FieldType fieldType(int field) { return fieldTypes[field]; }
+
+        /** 스키마에 없는 이름이면 -1 */
+        public int indexOf(String fieldName) {
+            Integer field = fieldIndexByName.get(fieldName);
+            return field == null ? -1 : field;
+        }
+
+        // 기존 addData 호출과 같은 값이 getData로 돌아오도록, 필드 타입과 정확히 같은 박싱 타입만 칸에 넣는다
+        boolean accepts(int field, Object value) {
+            return switch (fieldTypes[field]) {
+                case INT -> value instanceof Integer;
+                case LONG -> value instanceof Long;
+                case DOUBLE -> value instanceof Double;
+                case BOOLEAN -> value instanceof Boolean;
+                case STRING -> value instanceof String;
+            };
+        }
+
+        static final class Builder {
+            private final List<String> names = new ArrayList<>();
+            private final List<FieldType> types = new ArrayList<>();
+
+            public Builder field(String name, FieldType type) {
+                if (name == null || type == null) {
+                    throw new IllegalArgumentException("Field name and type cannot be null");
+                }
+                if (names.contains(name)) {
+                    throw new IllegalArgumentException("Duplicate field: " + name);
+                }
+                if (names.size() == MAX_FIELDS) {
+                    throw new IllegalArgumentException("A schema can have at most " + MAX_FIELDS + " fields");
+                }
+                names.add(name.intern());
+                types.add(type);
+                return this;
+            }
+
+            public RecordSchema build() {
+                return new RecordSchema(names, types);
+            }
+        }
+    }
+
+    // 스키마 없이 만들면 예전처럼 HashMap에 담는다.
+    // 스키마를 주면 스키마 필드는 타입별 배열 칸에 담고, 스키마 밖의 필드만 HashMap(필요할 때 생성)에 담는다.
     static class DataRecord {
+        private static final long[] NO_PRIMITIVE_SLOTS = new long[0];
+        private static final Object[] NO_OBJECT_SLOTS = new Object[0];
+
         private String recordId;
         private Map<String, Object> data;
         private boolean isValid;
 
+        private final RecordSchema schema;
+        private final long[] primitiveSlots;
+        private final Object[] objectSlots;
+        private long presentFields;
+
         public DataRecord(String recordId) {
             this.recordId = recordId;
             this.data = new HashMap<>();
             this.isValid = true;
+            this.schema = null;
+            this.primitiveSlots = NO_PRIMITIVE_SLOTS;
+            this.objectSlots = NO_OBJECT_SLOTS;
+        }
+
+        public DataRecord(String recordId, RecordSchema schema) {
+            this.recordId = recordId;
+            this.isValid = true;
+            this.schema = Objects.requireNonNull(schema, "schema");
+            this.primitiveSlots = schema.primitiveSlotCount == 0 ? NO_PRIMITIVE_SLOTS : new long[schema.primitiveSlotCount];
+            this.objectSlots = schema.objectSlotCount == 0 ? NO_OBJECT_SLOTS : new Object[schema.objectSlotCount];
         }
 
         public String getRecordId() { return recordId; }
-        public Map<String, Object> getData() { return new HashMap<>(data); }
         public boolean isValid() { return isValid; }
+        public RecordSchema getSchema() { return schema; }
+
+        // 호환용: 모든 필드를 새 HashMap에 복사해 돌려준다 (반환된 맵을 고쳐도 레코드는 바뀌지 않음)
+        public Map<String, Object> getData() {
+            Map<String, Object> copy = new HashMap<>();
+            if (schema != null) {
+                for (int field = 0; field < schema.fieldCount(); field++) {
+                    if (hasField(field)) {
+                        copy.put(schema.fieldName(field), getValue(field));
+                    }
+                }
+            }
+            if (data != null) {
+                copy.putAll(data);
+            }
+            return copy;
+        }
 
         public void addData(String key, Object value) {
+            int field = schema == null ? -1 : schema.indexOf(key);
+            if (field >= 0) {
+                if (value != null && schema.accepts(field, value)) {
+                    storeValue(field, value);
+                    return;
+                }
+                // 타입이 다른 값은 칸 대신 맵에 두어 getData가 넣은 그대로 돌려주게 한다
+                clearField(field);
+            }
+            if (data == null) {
+                data = new HashMap<>();
+            }
             data.put(key, value);
         }
 
         public void markAsInvalid() {
             this.isValid = false;
         }
+
+        // ===== 스키마 필드 직접 접근 (박싱/복사 없음) =====
+
+        public boolean hasField(int field) {
+            checkField(field);
+            return (presentFields & (1L << field)) != 0;
+        }
+
+        public int getInt(int field) {
+            return (int) primitiveSlot(field, FieldType.INT);
+        }
+
+        public long getLong(int field) {
+            return primitiveSlot(field, FieldType.LONG);
+        }
+
+        public double getDouble(int field) {
+            return Double.longBitsToDouble(primitiveSlot(field, FieldType.DOUBLE));
+        }
+
+        public boolean getBoolean(int field) {
+            return primitiveSlot(field, FieldType.BOOLEAN) != 0;
+        }
+
+        public String getString(int field) {
+            checkReadable(field, FieldType.STRING);
+            return (String) objectSlots[schema.slotByField[field]];
+        }
+
+        public void setInt(int field, int value) {
+            setPrimitive(field, FieldType.INT, value);
+        }
+
+        public void setLong(int field, long value) {
+            setPrimitive(field, FieldType.LONG, value);
+        }
+
+        public void setDouble(int field, double value) {
+            setPrimitive(field, FieldType.DOUBLE, Double.doubleToRawLongBits(value));
+        }
+
+        public void setBoolean(int field, boolean value) {
+            setPrimitive(field, FieldType.BOOLEAN, value ? 1 : 0);
+        }
+
+        public void setString(int field, String value) {
+            checkType(field, FieldType.STRING);
+            if (value == null) {
+                throw new IllegalArgumentException("Use addData for null values");
+            }
+            objectSlots[schema.slotByField[field]] = value;
+            markPresent(field);
+        }
+
+        private void storeValue(int field, Object value) {
+            switch (schema.fieldType(field)) {
+                case INT -> setInt(field, (Integer) value);
+                case LONG -> setLong(field, (Long) value);
+                case DOUBLE -> setDouble(field, (Double) value);
+                case BOOLEAN -> setBoolean(field, (Boolean) value);
+                case STRING -> setString(field, (String) value);
+            }
+        }
+
+        private Object getValue(int field) {
+            return switch (schema.fieldType(field)) {
+                case INT -> getInt(field);
+                case LONG -> getLong(field);
+                case DOUBLE -> getDouble(field);
+                case BOOLEAN -> getBoolean(field);
+                case STRING -> getString(field);
+            };
+        }
+
+        private void setPrimitive(int field, FieldType type, long bits) {
+            checkType(field, type);
+            primitiveSlots[schema.slotByField[field]] = bits;
+            markPresent(field);
+        }
+
+        private long primitiveSlot(int field, FieldType type) {
+            checkReadable(field, type);
+            return primitiveSlots[schema.slotByField[field]];
+        }
+
+        // 스키마 필드에 값을 쓰면 같은 이름으로 맵에 남아 있던 값은 지운다
+        private void markPresent(int field) {
+            presentFields |= 1L << field;
+            if (data != null && !data.isEmpty()) {
+                data.remove(schema.fieldName(field));
+            }
+        }
+
+        private void clearField(int field) {
+            presentFields &= ~(1L << field);
+            if (schema.fieldType(field) == FieldType.STRING) {
+                objectSlots[schema.slotByField[field]] = null;
+            }
+        }
+
+        // 시프트 연산은 음수나 64 이상의 번호도 조용히 다른 비트로 바꾸므로 범위를 먼저 확인한다
+        private void checkField(int field) {
+            if (schema == null) {
+                throw new IllegalStateException("Record " + recordId + " has no schema");
+            }
+            if (field < 0 || field >= schema.fieldCount()) {
+                throw new IndexOutOfBoundsException("Field " + field + " is out of range for "
+                        + schema.fieldCount() + " schema fields");
+            }
+        }
+
+        private void checkType(int field, FieldType type) {
+            checkField(field);
+            if (schema.fieldType(field) != type) {
+                throw new IllegalArgumentException("Field " + schema.fieldName(field) + " is "
+                        + schema.fieldType(field) + ", not " + type);
+            }
+        }
+
+        private void checkReadable(int field, FieldType type) {
+            checkType(field, type);
+            if (!hasField(field)) {
+                throw new IllegalStateException("Field " + schema.fieldName(field) + " is not set");
+            }
+        }
     }
 
     // Enums
@@ -1589,6 +3275,335 @@ public class MeaningfulName {
         }
     }
 
+    // ========== 알림 대량 발송 ==========
+
+    // 채널(EMAIL/SMS/PUSH)별 실제 발송 수단. 묶음 하나를 한 번에 보낸다.
+    interface NotificationTransport {
+        void sendBatch(NotificationType type, List<CoalescedNotification> batch);
+    }
+
+    // 기존 NotificationFactory로 알림을 만들어 send()하는 발송 수단
+    static class FactoryNotificationTransport implements NotificationTransport {
+        private final FactoryNaming.NotificationFactory factory;
+
+        FactoryNotificationTransport(FactoryNaming.NotificationFactory factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public void sendBatch(NotificationType type, List<CoalescedNotification> batch) {
+            for (CoalescedNotification notification : batch) {
+                factory.createNotification(type, notification.getMessage()).send();
+            }
+        }
+    }
+
+    // 한 사용자에게 짧은 시간 안에 들어온 같은 채널 알림들을 하나로 합친 것
+    static class CoalescedNotification {
+        private final String userId;
+        private final long dueNanos;
+        private final List<String> messages = new ArrayList<>(1);
+
+        CoalescedNotification(String userId, String firstMessage, long dueNanos) {
+            this.userId = userId;
+            this.dueNanos = dueNanos;
+            this.messages.add(firstMessage);
+        }
+
+        // 같은 내용이 다시 들어오면 한 번만 보낸다. 반환값은 새로 합쳐진 메시지인지 여부
+        private boolean merge(String message) {
+            if (messages.contains(message)) {
+                return false;
+            }
+            messages.add(message);
+            return true;
+        }
+
+        public String getUserId() { return userId; }
+        public List<String> getMessages() { return messages; }
+        public String getMessage() { return String.join("\n", messages); }
+    }
+
+    static class ChannelSettings {
+        private final int queueCapacity;
+        private final int workerCount;
+        private final int batchSize;
+        private final long coalesceWindowMillis;
+        private final int maxSendsPerSecond;
+
+        ChannelSettings(int queueCapacity, int workerCount, int batchSize,
+                        long coalesceWindowMillis, int maxSendsPerSecond) {
+            if (queueCapacity <= 0 || workerCount <= 0 || batchSize <= 0
+                    || coalesceWindowMillis < 0 || maxSendsPerSecond <= 0) {
+                throw new IllegalArgumentException("Invalid channel settings");
+            }
+            this.queueCapacity = queueCapacity;
+            this.workerCount = workerCount;
+            this.batchSize = batchSize;
+            this.coalesceWindowMillis = coalesceWindowMillis;
+            this.maxSendsPerSecond = maxSendsPerSecond;
+        }
+    }
+
+    /**
+     * 캠페인 알림 발송기. 알림 종류마다 큐, 워커 스레드, 발송 속도 제한을 따로 가진다.
+     * 그래서 SMS 게이트웨이가 느려져도 SMS 큐만 차고, 이메일과 푸시는 영향을 받지 않는다.
+     *
+     * 같은 사용자에게 같은 채널로 coalesceWindow 안에 들어온 알림은 하나로 합쳐 보낸다.
+     * 큐가 가득 차면 submit은 기다리지 않고 false를 반환한다 (호출자를 막지 않기 위해).
+     */
+    static class NotificationDispatcher implements AutoCloseable {
+        private final Map<NotificationType, NotificationChannel> channels = new EnumMap<>(NotificationType.class);
+
+        NotificationDispatcher(Map<NotificationType, NotificationTransport> transports,
+                               Map<NotificationType, ChannelSettings> settings) {
+            for (Map.Entry<NotificationType, NotificationTransport> entry : transports.entrySet()) {
+                ChannelSettings channelSettings = settings.get(entry.getKey());
+                if (channelSettings == null) {
+                    throw new IllegalArgumentException("Missing settings for " + entry.getKey());
+                }
+                channels.put(entry.getKey(), new NotificationChannel(entry.getKey(), entry.getValue(), channelSettings));
+            }
+        }
+
+        // NotificationFactoryProvider의 팩토리들로 모든 알림 종류를 같은 설정으로 발송
+        static NotificationDispatcher forProvider(FactoryNaming.NotificationFactoryProvider provider,
+                                                  ChannelSettings settings) {
+            Map<NotificationType, NotificationTransport> transports = new EnumMap<>(NotificationType.class);
+            Map<NotificationType, ChannelSettings> settingsByType = new EnumMap<>(NotificationType.class);
+            for (NotificationType type : NotificationType.values()) {
+                transports.put(type, new FactoryNotificationTransport(provider.getFactory(type)));
+                settingsByType.put(type, settings);
+            }
+            return new NotificationDispatcher(transports, settingsByType);
+        }
+
+        public boolean submit(NotificationType type, String userId, String message) {
+            NotificationChannel channel = channels.get(type);
+            if (channel == null) {
+                throw new IllegalArgumentException("Unsupported notification type: " + type);
+            }
+            return channel.submit(userId, message);
+        }
+
+        // 한 사용자에게 여러 채널로 같은 메시지를 보낸다. 받아들여진 채널 수를 반환
+        public int submitToAll(String userId, String message, Set<NotificationType> types) {
+            int acceptedCount = 0;
+            for (NotificationType type : types) {
+                if (submit(type, userId, message)) {
+                    acceptedCount++;
+                }
+            }
+            return acceptedCount;
+        }
+
+        public ChannelStatistics getStatistics(NotificationType type) {
+            return channels.get(type).statistics;
+        }
+
+        /**
+         * 새 알림을 더 받지 않고, 이미 받은 알림을 모두 보낼 때까지 기다린다.
+         * 기다리는 중에 인터럽트되면 기다리기만 그만두고 인터럽트 상태를 되살린다 (남은 알림은 워커가 계속 보낸다).
+         */
+        @Override
+        public void close() {
+            for (NotificationChannel channel : channels.values()) {
+                channel.stopAccepting();
+            }
+            try {
+                for (NotificationChannel channel : channels.values()) {
+                    channel.awaitDrained();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static class ChannelStatistics {
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+
+        public long getAcceptedCount() { return accepted.sum(); }
+        public long getCoalescedCount() { return coalesced.sum(); }
+        public long getRejectedCount() { return rejected.sum(); }
+        public long getSentCount() { return sent.sum(); }
+        public long getFailedCount() { return failed.sum(); }
+        public long getBatchCount() { return batches.sum(); }
+
+        @Override
+        public String toString() {
+            return "ChannelStatistics{" +
+                    "accepted=" + getAcceptedCount() +
+                    ", coalesced=" + getCoalescedCount() +
+                    ", rejected=" + getRejectedCount() +
+                    ", sent=" + getSentCount() +
+                    ", failed=" + getFailedCount() +
+                    ", batches=" + getBatchCount() +
+                    '}';
+        }
+    }
+
+    // 알림 종류 하나의 큐와 워커들
+    static class NotificationChannel {
+        private static final long POLL_INTERVAL_MILLIS = 10;
+
+        private final NotificationType type;
+        private final NotificationTransport transport;
+        private final int batchSize;
+        private final long coalesceWindowNanos;
+        private final BlockingQueue<CoalescedNotification> queue;
+        private final Map<String, CoalescedNotification> pendingByUserId = new ConcurrentHashMap<>();
+        private final SendRateLimiter rateLimiter;
+        private final ChannelStatistics statistics = new ChannelStatistics();
+        private final List<Thread> workers = new ArrayList<>();
+
+        // submit은 읽기 락, stopAccepting은 쓰기 락: 닫힌 뒤에 큐에 들어가 워커 없이 남는 알림이 생기지 않는다
+        // (워커는 락 없이 닫힘 여부만 보므로 volatile)
+        private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+        private volatile boolean accepting = true;
+
+        NotificationChannel(NotificationType type, NotificationTransport transport, ChannelSettings settings) {
+            this.type = type;
+            this.transport = transport;
+            this.batchSize = settings.batchSize;
+            this.coalesceWindowNanos = TimeUnit.MILLISECONDS.toNanos(settings.coalesceWindowMillis);
+            this.queue = new ArrayBlockingQueue<>(settings.queueCapacity);
+            this.rateLimiter = new SendRateLimiter(settings.maxSendsPerSecond);
+            for (int i = 0; i < settings.workerCount; i++) {
+                Thread worker = new Thread(this::run, "notify-" + type.name().toLowerCase() + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+
+        boolean submit(String userId, String message) {
+            lifecycleLock.readLock().lock();
+            try {
+                if (!accepting) {
+                    throw new IllegalStateException("Dispatcher is closed");
+                }
+                CoalescedNotification current = pendingByUserId.compute(userId,
+                        (key, existing) -> existing == null ? enqueueNew(userId, message) : mergeInto(existing, message));
+                if (current == null) {
+                    statistics.rejected.increment();
+                    return false;
+                }
+                statistics.accepted.increment();
+                return true;
+            } finally {
+                lifecycleLock.readLock().unlock();
+            }
+        }
+
+        // 큐에 넣는 데 성공한 알림만 맵에 올린다 (실패하면 null → 맵에 남지 않는다).
+        // 그래야 다른 메시지가 큐에 없는 알림에 합쳐졌다가 함께 사라지는 일이 없다.
+        private CoalescedNotification enqueueNew(String userId, String message) {
+            CoalescedNotification created = new CoalescedNotification(userId, message,
+                    System.nanoTime() + coalesceWindowNanos);
+            return queue.offer(created) ? created : null;
+        }
+
+        private CoalescedNotification mergeInto(CoalescedNotification existing, String message) {
+            if (existing.merge(message)) {
+                statistics.coalesced.increment();
+            }
+            return existing;
+        }
+
+        private void run() {
+            List<CoalescedNotification> batch = new ArrayList<>(batchSize);
+            try {
+                while (accepting || !queue.isEmpty()) {
+                    CoalescedNotification first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+
+                    waitUntilDue(first);
+                    batch.add(takePending(first));
+                    // 큐는 도착 순서이고 창 길이가 같으므로, 앞에서부터 만기된 것만 이어서 꺼낸다
+                    while (batch.size() < batchSize) {
+                        CoalescedNotification next = queue.peek();
+                        if (next == null || next.dueNanos - System.nanoTime() > 0 || !queue.remove(next)) break;
+                        batch.add(takePending(next));
+                    }
+                    rateLimiter.acquire(batch.size());
+                    sendSafely(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // 맵에서 먼저 빼야 이후 들어오는 알림이 이미 보낸 묶음에 합쳐져 사라지지 않는다
+        private CoalescedNotification takePending(CoalescedNotification notification) {
+            pendingByUserId.remove(notification.userId, notification);
+            return notification;
+        }
+
+        private void waitUntilDue(CoalescedNotification notification) throws InterruptedException {
+            long remainingNanos;
+            while ((remainingNanos = notification.dueNanos - System.nanoTime()) > 0 && accepting) {
+                TimeUnit.NANOSECONDS.sleep(remainingNanos);
+            }
+        }
+
+        // 발송 실패는 이 채널의 통계에만 남기고 워커는 계속 돈다
+        private void sendSafely(List<CoalescedNotification> batch) {
+            try {
+                transport.sendBatch(type, batch);
+                statistics.sent.add(batch.size());
+            } catch (RuntimeException e) {
+                statistics.failed.add(batch.size());
+            }
+            statistics.batches.increment();
+        }
+
+        private void stopAccepting() {
+            lifecycleLock.writeLock().lock();
+            try {
+                accepting = false;
+            } finally {
+                lifecycleLock.writeLock().unlock();
+            }
+        }
+
+        private void awaitDrained() throws InterruptedException {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+    }
+
+    // 채널별 초당 발송 수 제한. 다음 발송 가능 시각 하나만 관리한다 (GCRA).
+    // 1ms보다 짧은 대기는 잠들지 않고 바로 보낸다 (sleep 자체가 그보다 오래 걸리므로, 그만큼의 버스트는 허용)
+    static class SendRateLimiter {
+        private static final long MIN_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private final long nanosPerSend;
+        private final AtomicLong nextFreeNanos = new AtomicLong(System.nanoTime());
+
+        SendRateLimiter(int maxSendsPerSecond) {
+            this.nanosPerSend = TimeUnit.SECONDS.toNanos(1) / maxSendsPerSecond;
+        }
+
+        void acquire(int sends) throws InterruptedException {
+            long cost = nanosPerSend * sends;
+            long now = System.nanoTime();
+            long reservedAt = nextFreeNanos.getAndAccumulate(cost,
+                    (next, reservation) -> Math.max(next, now) + reservation);
+            long waitNanos = Math.max(reservedAt, now) - now;
+            if (waitNanos >= MIN_SLEEP_NANOS) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+
     // 헬퍼 클래스
     static class Order {
         private int quantity;
@@ -1644,4 +3659,115 @@ public class MeaningfulName {
             this.shippingAddress = shippingAddress;
         }
     }
-}
\ No newline at end of file
+
+    // ========== 메인 데모 메서드 ==========
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== 계좌 이체 돈 보존 스트레스 테스트 ===");
+
+        // 계좌 수가 적을수록 같은 계좌를 두고 경합이 잦아진다
+        MeaningfulName example = new MeaningfulName();
+        List<BankAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            BankAccount account = example.new BankAccount(String.format("ACC-%03d", i), AccountType.CHECKING);
+            account.deposit(100_000);
+            accounts.add(account);
+        }
+
+        TransferStressReport report = BankTransferEngine.runConservationStressTest(accounts, 8, 50_000, 32);
+        System.out.println(report);
+        System.out.println("돈 보존 여부: " + (report.isMoneyConserved() ? "보존됨" : "불일치!"));
+
+        // 기본 1,000만 명 (힙 6GB 정도 필요). 줄이려면 java -Dcustomers=1000000 MeaningfulName.java
+        System.out.println();
+        System.out.println("=== 고객 이메일 조회 벤치마크 ===");
+        benchmarkCustomerLookup(example, Integer.getInteger("customers", 10_000_000), 2_000_000);
+
+        System.out.println();
+        System.out.println("=== DataRecord 레코드당 메모리 (HashMap vs 스키마) ===");
+        measureRecordFootprint(1_000_000);
+    }
+
+    // 같은 6개 필드를 addData로 넣은 레코드 100만 개를 만들어, GC 후 늘어난 힙을 레코드 수로 나눈다
+    private static void measureRecordFootprint(int recordCount) {
+        RecordSchema schema = RecordSchema.builder()
+                .field("id", FieldType.LONG)
+                .field("amount", FieldType.DOUBLE)
+                .field("count", FieldType.INT)
+                .field("active", FieldType.BOOLEAN)
+                .field("category", FieldType.STRING)
+                .field("score", FieldType.DOUBLE)
+                .build();
+        String[] categories = {"A", "B", "C"};
+
+        for (boolean useSchema : new boolean[]{false, true}) {
+            long heapBefore = usedHeapAfterGc();
+            List<DataRecord> records = new ArrayList<>(recordCount);
+            for (int i = 0; i < recordCount; i++) {
+                DataRecord record = useSchema ? new DataRecord("r", schema) : new DataRecord("r");
+                record.addData("id", (long) i * 1000);
+                record.addData("amount", i * 1.5);
+                record.addData("count", i);
+                record.addData("active", i % 2 == 0);
+                record.addData("category", categories[i % 3]);
+                record.addData("score", i / 7.0);
+                records.add(record);
+            }
+            long heapAfter = usedHeapAfterGc();
+            System.out.printf("%s: 레코드당 %,.0f bytes (%,d개)%n", useSchema ? "스키마 " : "HashMap",
+                    (heapAfter - heapBefore) / (double) records.size(), records.size());
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void benchmarkCustomerLookup(MeaningfulName example, int customerCount, int lookupCount) {
+        DomainVsTechnicalTerms.CustomerRepository repository = example.new DomainVsTechnicalTerms().new CustomerRepository();
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < customerCount; i++) {
+            Customer customer = example.new Customer();
+            customer.setEmail("customer" + i + "@example.com");
+            customer.setActive(i % 10 != 0);
+            repository.saveCustomer(customer);
+        }
+        System.out.printf("고객 %,d명 저장: %,d ms%n", customerCount, (System.nanoTime() - startedAt) / 1_000_000);
+
+        // 로그인 입력처럼 대소문자와 앞뒤 공백이 섞인 이메일로 조회한다
+        Random random = new Random(42);
+        String[] probes = new String[1 << 16];
+        for (int i = 0; i < probes.length; i++) {
+            int customerNumber = random.nextInt(customerCount);
+            probes[i] = i % 2 == 0
+                    ? " Customer" + customerNumber + "@EXAMPLE.com"
+                    : "customer" + customerNumber + "@example.com";
+        }
+        for (int round = 1; round <= 3; round++) { // 첫 회차는 JIT 워밍업
+            startedAt = System.nanoTime();
+            int hits = 0;
+            for (int i = 0; i < lookupCount; i++) {
+                if (repository.findByEmail(probes[i & (probes.length - 1)]) != null) {
+                    hits++;
+                }
+            }
+            System.out.printf("findByEmail %d회차: 평균 %,.0f ns/건 (%,d건 중 %,d건 찾음)%n",
+                    round, (System.nanoTime() - startedAt) / (double) lookupCount, lookupCount, hits);
+        }
+
+        startedAt = System.nanoTime();
+        int activeCount = repository.findActiveCustomers().size();
+        System.out.printf("findActiveCustomers: %,d명, %,d ms%n", activeCount, (System.nanoTime() - startedAt) / 1_000_000);
+
+        // 색인 전 방식: 모든 고객을 훑어 이메일을 비교 (한 번만)
+        String lastEmail = "customer" + (customerCount - 1) + "@example.com";
+        startedAt = System.nanoTime();
+        boolean found = repository.customers.values().stream()
+                .anyMatch(customer -> lastEmail.equals(customer.getEmail()));
+        System.out.printf("전체 순회 조회 1건: %,d ms (찾음: %b)%n", (System.nanoTime() - startedAt) / 1_000_000, found);
+    }
+}